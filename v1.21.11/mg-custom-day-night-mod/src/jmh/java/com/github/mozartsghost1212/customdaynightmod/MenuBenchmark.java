@@ -0,0 +1,79 @@
+package com.github.mozartsghost1212.customdaynightmod;
+
+import net.minecraft.text.Text;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the command helpers: duration formatting and rendering of the chat menu, cold, cached, as one composite message, and after a change that
+ * touches one row.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MenuBenchmark {
+
+    @Param({"600", "12000", "2400000"})
+    public int ticks;
+
+    private ModConfig config;
+    private ModConfig changed;
+    private CachedMenu menu;
+    private boolean flip;
+
+    @Setup
+    public void setup() {
+        config = new ModConfig.Builder()
+                .dayMultiplier(0.75f)
+                .nightMultiplier(1.75f)
+                .absoluteDayLength(ticks)
+                .absoluteNightLength(ticks)
+                .build();
+        changed = config.toBuilder().nightMultiplier(2.0f).build();
+        menu = CustomDayNightCommand.newMenu();
+        menu.render(config);
+    }
+
+    @Benchmark
+    public String formatDuration() {
+        return CustomDayNightCommand.formatDuration(ticks);
+    }
+
+    @Benchmark
+    public List<Text> renderMenuCold() {
+        return CustomDayNightCommand.newMenu().render(config);
+    }
+
+    @Benchmark
+    public List<Text> renderMenuCached() {
+        return menu.render(config);
+    }
+
+    @Benchmark
+    public Text renderMenuComposite() {
+        return menu.renderComposite(config);
+    }
+
+    /** Rows that changed between the two snapshots, as sent in compact mode. */
+    @Benchmark
+    public Text renderMenuChanges() {
+        flip = !flip;
+        return flip ? menu.renderChanges(changed, config.version()) : menu.renderChanges(config, changed.version());
+    }
+
+    /** Alternates between two snapshots that differ in the night multiplier. */
+    @Benchmark
+    public List<Text> renderMenuOneRowChanged() {
+        flip = !flip;
+        return menu.render(flip ? changed : config);
+    }
+}
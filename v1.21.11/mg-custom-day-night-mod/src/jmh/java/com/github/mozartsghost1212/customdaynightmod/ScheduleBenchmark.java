@@ -0,0 +1,69 @@
+package com.github.mozartsghost1212.customdaynightmod;
+
+import com.github.mozartsghost1212.customdaynightmod.core.SpeedCurve;
+import com.github.mozartsghost1212.customdaynightmod.core.TimeAdvanceEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of deriving the effective day and night lengths shown in the menu, for each way a
+ * schedule can be configured: multipliers, absolute lengths or a speed curve.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ScheduleBenchmark {
+
+    private static final String CURVE = "0:1.0, 11000:0.5, 12500:2.0, 18000:0.25";
+
+    @Param({"multiplier", "absolute", "curve"})
+    public String mode;
+
+    private float dayMultiplier;
+    private float nightMultiplier;
+    private int absoluteDayLength;
+    private int absoluteNightLength;
+    private SpeedCurve curve;
+
+    @Setup
+    public void setup() {
+        dayMultiplier = 0.75f;
+        nightMultiplier = 1.75f;
+        boolean absolute = mode.equals("absolute");
+        absoluteDayLength = absolute ? 36000 : 0;
+        absoluteNightLength = absolute ? 12000 : 0;
+        curve = mode.equals("curve") ? compileCurve() : null;
+    }
+
+    /**
+     * Day plus night length as the engine derives them. A curve's lengths are integrated while
+     * its table is compiled, so in curve mode that compilation is what is measured.
+     */
+    @Benchmark
+    public int effectiveTicks() {
+        if (curve != null) {
+            SpeedCurve compiled = compileCurve();
+            return compiled.effectiveDayTicks() + compiled.effectiveNightTicks();
+        }
+        return TimeAdvanceEngine.effectiveTicks(absoluteDayLength, dayMultiplier)
+                + TimeAdvanceEngine.effectiveTicks(absoluteNightLength, nightMultiplier);
+    }
+
+    /** A schedule as every configuration snapshot builds it, clamping and steps included. */
+    @Benchmark
+    public CycleSchedule buildSchedule() {
+        return new CycleSchedule(dayMultiplier, nightMultiplier, absoluteDayLength, absoluteNightLength, curve, null);
+    }
+
+    private static SpeedCurve compileCurve() {
+        return SpeedCurve.parse("golden", CURVE, ModConfig.MIN_MULTIPLIER, ModConfig.MAX_MULTIPLIER);
+    }
+}
@@ -0,0 +1,45 @@
+package com.github.mozartsghost1212.customdaynightmod;
+
+import com.github.mozartsghost1212.customdaynightmod.core.CycleSimulator;
+import com.github.mozartsghost1212.customdaynightmod.core.SimulationReport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the headless {@link CycleSimulator}, in simulated server ticks per second.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SimulatorBenchmark {
+
+    private static final int TICKS = 1_000_000;
+
+    /** dayMultiplier/nightMultiplier/absoluteDayLength/absoluteNightLength */
+    @Param({"1.0/1.0/0/0", "0.75/1.75/0/0", "1.0/1.0/36000/12000"})
+    public String schedule;
+
+    private CycleSimulator simulator;
+
+    @Setup
+    public void setup() {
+        String[] parts = schedule.split("/");
+        simulator = CycleSimulator.forSchedule(Float.parseFloat(parts[0]), Float.parseFloat(parts[1]),
+                Integer.parseInt(parts[2]), Integer.parseInt(parts[3]));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TICKS)
+    public SimulationReport simulate() {
+        return simulator.run(TICKS);
+    }
+}
@@ -0,0 +1,85 @@
+package com.github.mozartsghost1212.customdaynightmod;
+
+import com.github.mozartsghost1212.customdaynightmod.core.CycleDriver;
+import com.github.mozartsghost1212.customdaynightmod.core.SimulatedClock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-tick cost of advancing one world, as done by {@link WorldCycle#tick} minus the
+ * world access: snapshot load and the headless {@link CycleDriver} step (phase detection
+ * and the fixed-point engine) against a {@link SimulatedClock}.
+ * {@link #floatDivisionBaseline()} reproduces the original float-division path for comparison.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TickAdvanceBenchmark {
+
+    /** dayMultiplier/nightMultiplier/absoluteDayLength/absoluteNightLength */
+    @Param({"1.0/1.0/0/0", "0.5/1.75/0/0", "100/0.01/0/0", "1.0/1.0/36000/12000", "1.0/1.0/20/2400000"})
+    public String schedule;
+
+    private SimulatedClock clock;
+    private CycleDriver driver;
+    private ModConfig configured;
+
+    private float dayMultiplier;
+    private float nightMultiplier;
+    private int absoluteDayLength;
+    private int absoluteNightLength;
+
+    @Setup
+    public void setup() {
+        String[] parts = schedule.split("/");
+        dayMultiplier = Float.parseFloat(parts[0]);
+        nightMultiplier = Float.parseFloat(parts[1]);
+        absoluteDayLength = Integer.parseInt(parts[2]);
+        absoluteNightLength = Integer.parseInt(parts[3]);
+        ModConfig.publish(new ModConfig.Builder()
+                .dayMultiplier(dayMultiplier)
+                .nightMultiplier(nightMultiplier)
+                .absoluteDayLength(absoluteDayLength)
+                .absoluteNightLength(absoluteNightLength)
+                .build());
+        clock = new SimulatedClock(0L);
+        driver = new CycleDriver(clock);
+        configured = null;
+    }
+
+    @Benchmark
+    public long engineTick() {
+        ModConfig config = ModConfig.get();
+        if (config != configured) {
+            driver.configure(config.dayStep(), config.nightStep());
+            configured = config;
+        }
+        driver.tick();
+        clock.vanillaTick();
+        return driver.getWrittenTime();
+    }
+
+    @Benchmark
+    public long floatDivisionBaseline() {
+        long time = clock.getTimeOfDay() % 24000L;
+        float multiplier;
+        if (absoluteDayLength > 0 && time < 12000L) {
+            multiplier = (24000f / 2) / absoluteDayLength;
+        } else if (absoluteNightLength > 0 && time >= 12000L) {
+            multiplier = (24000f / 2) / absoluteNightLength;
+        } else {
+            multiplier = (time < 12000L) ? dayMultiplier : nightMultiplier;
+        }
+        long next = clock.getTimeOfDay() + (long) multiplier;
+        clock.setTimeOfDay(next);
+        return next;
+    }
+}
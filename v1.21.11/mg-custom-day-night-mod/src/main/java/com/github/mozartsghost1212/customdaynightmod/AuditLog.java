@@ -0,0 +1,58 @@
+package com.github.mozartsghost1212.customdaynightmod;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Append-only record of every configuration change made through commands.
+ * <p>
+ * Each change becomes one {@code key=value} line with a UTC timestamp, who made it and the old
+ * and new value, for example
+ * {@code 2026-10-18T09:12:44Z event=config_change actor=Steve key=dayMultiplier from=1.00 to=2.50}.
+ * Lines are appended on the configuration I/O thread (see {@link ConfigPersistence#execute}), so a
+ * command never waits for the disk. The file is never rewritten or truncated by the mod.
+ * </p>
+ */
+final class AuditLog {
+
+    static final Path AUDIT_PATH = Path.of("logs", "customdaynightmod-audit.log");
+
+    private AuditLog() {
+    }
+
+    /** Records a change of one setting. */
+    static void change(String actor, String key, String from, String to) {
+        append("event=config_change actor=" + quote(actor) + " key=" + key + " from=" + quote(from) + " to=" + quote(to));
+    }
+
+    /** Records an action that affects the whole configuration, such as a reload or a reset. */
+    static void action(String actor, String action) {
+        append("event=config_" + action + " actor=" + quote(actor));
+    }
+
+    private static void append(String entry) {
+        String line = Instant.now().truncatedTo(ChronoUnit.SECONDS) + " " + entry + System.lineSeparator();
+        ConfigPersistence.execute(() -> {
+            try {
+                Files.createDirectories(AUDIT_PATH.getParent());
+                Files.writeString(AUDIT_PATH, line, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            } catch (IOException e) {
+                ModLog.warn(ModLog.Category.IO, e, "event=audit_write_failed path={}", AUDIT_PATH);
+            }
+        });
+    }
+
+    /** Quotes values containing spaces so every line stays machine-readable. */
+    private static String quote(String value) {
+        if (value.isEmpty() || value.indexOf(' ') >= 0 || value.indexOf('"') >= 0) {
+            return "\"" + value.replace("\"", "\\\"") + "\"";
+        }
+        return value;
+    }
+}
@@ -0,0 +1,128 @@
+package com.github.mozartsghost1212.customdaynightmod;
+
+import net.minecraft.text.MutableText;
+import net.minecraft.text.Text;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Chat menu whose rendered lines are cached per {@link ModConfig#version()}.
+ * <p>
+ * As long as the published snapshot does not change, {@link #render(ModConfig)} returns the same
+ * list of {@link Text} instances, which are shared by every viewer. When a new snapshot is seen,
+ * each {@link Row} compares the value it depends on with the one it was last rendered for and
+ * only rebuilds its component tree if that value changed, so setting the day multiplier rebuilds
+ * the multiplier row and the duration summary but not the other rows.
+ * </p>
+ * <p>
+ * The lines are sent as a single multi-line component ({@link #renderComposite(ModConfig)}), so a
+ * menu view is one chat message instead of one per line. Each row also remembers the version in
+ * which it last changed, which lets {@link #renderChanges(ModConfig, int)} send a viewer only the
+ * rows that changed since the version they last saw.
+ * </p>
+ * <p>
+ * Only used on the server thread; not thread-safe.
+ * </p>
+ */
+final class CachedMenu {
+
+    /** One line of the menu and the configuration value it is rendered from. */
+    static final class Row {
+        private final Function<ModConfig, ?> key;
+        private final Function<ModConfig, Text> renderer;
+        private Object renderedKey = null;
+        private Text rendered = null;
+        /** Snapshot version in which the rendered line last changed. */
+        private int changedVersion = 0;
+
+        private Row(Function<ModConfig, ?> key, Function<ModConfig, Text> renderer) {
+            this.key = key;
+            this.renderer = renderer;
+        }
+
+        /** A line that depends on the given value and is rebuilt when it changes. */
+        static Row of(Function<ModConfig, ?> key, Function<ModConfig, Text> renderer) {
+            return new Row(key, renderer);
+        }
+
+        /** A line that never changes. */
+        static Row fixed(Text text) {
+            Row row = new Row(config -> Boolean.TRUE, config -> text);
+            row.renderedKey = Boolean.TRUE;
+            row.rendered = text;
+            return row;
+        }
+
+        private Text render(ModConfig config) {
+            Object value = key.apply(config);
+            if (rendered == null || !Objects.equals(value, renderedKey)) {
+                rendered = renderer.apply(config);
+                renderedKey = value;
+                changedVersion = config.version();
+            }
+            return rendered;
+        }
+    }
+
+    private final Row[] rows;
+    private int renderedVersion = 0;
+    private List<Text> lines = List.of();
+    private Text composite = null;
+
+    CachedMenu(List<Row> rows) {
+        this.rows = rows.toArray(new Row[0]);
+    }
+
+    /** Returns the menu lines for a snapshot, reusing everything that did not change. */
+    List<Text> render(ModConfig config) {
+        if (config.version() == renderedVersion) {
+            return lines;
+        }
+        Text[] rendered = new Text[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            rendered[i] = rows[i].render(config);
+        }
+        lines = List.of(rendered);
+        composite = null;
+        renderedVersion = config.version();
+        return lines;
+    }
+
+    /** Returns the whole menu as one component with a line break between rows, cached like the lines. */
+    Text renderComposite(ModConfig config) {
+        List<Text> current = render(config);
+        if (composite == null) {
+            composite = join(current);
+        }
+        return composite;
+    }
+
+    /**
+     * Returns the rows that changed after {@code sinceVersion} as one component, or null if none
+     * did. Not cached: the result depends on the viewer.
+     */
+    Text renderChanges(ModConfig config, int sinceVersion) {
+        List<Text> current = render(config);
+        List<Text> changed = new ArrayList<>();
+        for (int i = 0; i < rows.length; i++) {
+            if (rows[i].changedVersion > sinceVersion) {
+                changed.add(current.get(i));
+            }
+        }
+        return changed.isEmpty() ? null : join(changed);
+    }
+
+    private static Text join(List<Text> lines) {
+        MutableText out = Text.empty();
+        for (int i = 0; i < lines.size(); i++) {
+            if (i > 0) {
+                out.append("\n");
+            }
+            out.append(lines.get(i));
+        }
+        return out;
+    }
+}
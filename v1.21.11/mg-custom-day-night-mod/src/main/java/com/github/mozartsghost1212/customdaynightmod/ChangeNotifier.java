@@ -0,0 +1,185 @@
+package com.github.mozartsghost1212.customdaynightmod;
+
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.command.ServerCommandSource;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.text.Text;
+import net.minecraft.util.Formatting;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Coalesces the operator broadcast for configuration changes.
+ * <p>
+ * A change made through a command is written to the {@link AuditLog} right away, but the
+ * broadcast to other operators and the console is held back per command source for
+ * {@link #WINDOW_TICKS}. Everything the same source changes in that window goes out as one
+ * summary such as {@code Steve changed dayMultiplier 1.00→2.50 (5 changes)}, so an admin
+ * clicking through the menu does not flood everyone else's chat. Reloads, saves and resets join
+ * the same summary ({@code Steve reset all settings, changed ...}), in the order they happened.
+ * </p>
+ * <p>
+ * This is the only way the mod's commands broadcast to operators. The summary is not sent back
+ * to the person who made the changes; they get immediate feedback from the command itself.
+ * </p>
+ * <p>
+ * Only used on the server thread.
+ * </p>
+ */
+final class ChangeNotifier {
+
+    /** How long changes from one source are collected before they are broadcast (2 seconds). */
+    static final int WINDOW_TICKS = 40;
+
+    /** Key prefix that keeps announcements apart from setting names in a pending summary. */
+    private static final String ACTION_PREFIX = "!";
+
+    /** Pending summaries keyed by command source name, in order of their first change. */
+    private static final Map<String, Pending> PENDING = new LinkedHashMap<>();
+
+    private ChangeNotifier() {
+    }
+
+    /** Records a committed change of one setting; values are already formatted for display. */
+    static void record(ServerCommandSource source, String key, String from, String to) {
+        AuditLog.change(source.getName(), key, from, to);
+        Pending pending = PENDING.computeIfAbsent(source.getName(),
+                name -> new Pending(source, source.getServer().getTicks()));
+        Change change = pending.changes.get(key);
+        if (change == null) {
+            pending.changes.put(key, new Change(from, to));
+        } else {
+            change.to = to;
+            change.count++;
+        }
+    }
+
+    /**
+     * Records an action on the whole configuration ({@code reload}, {@code save} or
+     * {@code reset}) and adds it to the source's pending summary.
+     */
+    static void recordAction(ServerCommandSource source, String action) {
+        AuditLog.action(source.getName(), action);
+        announce(source, describeAction(action));
+    }
+
+    /**
+     * Adds something the source did outside the configuration, such as
+     * {@code "reset the tick metrics"}, to its pending summary without auditing it.
+     */
+    static void announce(ServerCommandSource source, String description) {
+        Pending pending = PENDING.computeIfAbsent(source.getName(),
+                name -> new Pending(source, source.getServer().getTicks()));
+        Change change = pending.changes.get(ACTION_PREFIX + description);
+        if (change == null) {
+            pending.changes.put(ACTION_PREFIX + description, new Change(null, description));
+        } else {
+            change.count++;
+        }
+    }
+
+    private static String describeAction(String action) {
+        return switch (action) {
+            case "reload" -> "reloaded the configuration";
+            case "save" -> "saved the configuration";
+            case "reset" -> "reset all settings";
+            default -> action;
+        };
+    }
+
+    /** Broadcasts the summaries whose window has closed. Called once per server tick. */
+    static void tick(int serverTick) {
+        if (PENDING.isEmpty()) {
+            return;
+        }
+        Iterator<Pending> iterator = PENDING.values().iterator();
+        while (iterator.hasNext()) {
+            Pending pending = iterator.next();
+            if (serverTick - pending.firstTick >= WINDOW_TICKS) {
+                iterator.remove();
+                broadcast(pending);
+            }
+        }
+    }
+
+    /** Broadcasts everything still pending, e.g. when the server stops. */
+    static void flush() {
+        for (Pending pending : PENDING.values()) {
+            broadcast(pending);
+        }
+        PENDING.clear();
+    }
+
+    private static void broadcast(Pending pending) {
+        StringBuilder summary = new StringBuilder();
+        boolean changing = false;
+        for (Map.Entry<String, Change> entry : pending.changes.entrySet()) {
+            Change change = entry.getValue();
+            if (!summary.isEmpty()) {
+                summary.append(", ");
+            }
+            if (change.from == null) {
+                summary.append(change.to);
+                if (change.count > 1) {
+                    summary.append(" (").append(change.count).append(" times)");
+                }
+                changing = false;
+                continue;
+            }
+            if (!changing) {
+                summary.append("changed ");
+                changing = true;
+            }
+            summary.append(entry.getKey()).append(' ').append(change.from).append('→').append(change.to);
+            if (change.count > 1) {
+                summary.append(" (").append(change.count).append(" changes)");
+            }
+        }
+        Text message = Text.literal(CustomDayNightMod.LOG_PREFIX + " " + pending.source.getName() + " " + summary)
+                .formatted(Formatting.GRAY);
+        send(pending.source, message);
+    }
+
+    /**
+     * Sends a summary to every online player allowed to run the command except the one who
+     * made the changes, and to the console unless the changes were made from it.
+     */
+    private static void send(ServerCommandSource source, Text message) {
+        MinecraftServer server = source.getServer();
+        ServerPlayerEntity actor = source.getPlayer();
+        for (ServerPlayerEntity player : server.getPlayerManager().getPlayerList()) {
+            boolean isActor = actor != null && player.getUuid().equals(actor.getUuid());
+            if (!isActor && CustomDayNightCommand.PERMISSION.test(player.getCommandSource())) {
+                player.sendMessage(message);
+            }
+        }
+        if (actor != null) {
+            server.sendMessage(message);
+        }
+    }
+
+    private static final class Pending {
+        private final ServerCommandSource source;
+        private final int firstTick;
+        private final Map<String, Change> changes = new LinkedHashMap<>();
+
+        Pending(ServerCommandSource source, int firstTick) {
+            this.source = source;
+            this.firstTick = firstTick;
+        }
+    }
+
+    /** A setting's first and latest value, or an announcement (no {@code from}, {@code to} describes it). */
+    private static final class Change {
+        private final String from;
+        private String to;
+        private int count = 1;
+
+        Change(String from, String to) {
+            this.from = from;
+            this.to = to;
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package com.github.mozartsghost1212.customdaynightmod;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A set of configuration changes given as {@code key=value} pairs, validated as a whole and
+ * applied as one snapshot.
+ * <p>
+ * Keys are the property names used by {@code /customdaynight set}. Every value is parsed and
+ * clamped with the {@code ModConfig.clamp*} helpers before anything is applied, so a typo in the
+ * last pair rejects the whole batch instead of leaving a half-applied schedule behind. The word
+ * {@code save} anywhere in the input asks for the result to be persisted once.
+ * </p>
+ */
+final class ConfigBatch {
+
+    /** Keys accepted in a batch, in the order they are listed in help texts. */
+    static final List<String> KEYS = List.of(
+            "dayMultiplier", "nightMultiplier", "absoluteDayLength", "absoluteNightLength",
+            "logPhaseChanges", "timeSyncThreshold", "speedCurve",
+            "calendarEnabled", "calendarYearLength", "calendarShortestPhase", "calendarLongestPhase",
+            "wallClockMode", "maxCatchUpTicks", "idleMode", "idleJumpTime", "compactMenu");
+
+    private final List<Consumer<ModConfig.Builder>> changes = new ArrayList<>();
+    private final List<String> keys = new ArrayList<>();
+    private final List<String> applied = new ArrayList<>();
+    private final List<String> clamped = new ArrayList<>();
+    private boolean save = false;
+
+    private ConfigBatch() {
+    }
+
+    /**
+     * Parses and validates a batch against the current configuration.
+     *
+     * @throws IllegalArgumentException naming the first invalid pair; nothing is applied
+     */
+    static ConfigBatch parse(String input, ModConfig current) {
+        ConfigBatch batch = new ConfigBatch();
+        for (String token : input.trim().split("\\s+")) {
+            if (token.isEmpty()) {
+                continue;
+            }
+            if (token.equalsIgnoreCase("save")) {
+                batch.save = true;
+                continue;
+            }
+            int equals = token.indexOf('=');
+            if (equals <= 0) {
+                throw new IllegalArgumentException("Expected key=value, got '" + token + "'");
+            }
+            batch.add(token.substring(0, equals), token.substring(equals + 1), current);
+        }
+        if (batch.changes.isEmpty()) {
+            throw new IllegalArgumentException("No changes given (keys: " + String.join(", ", KEYS) + ")");
+        }
+        return batch;
+    }
+
+    private void add(String key, String value, ModConfig current) {
+        switch (key) {
+            case "dayMultiplier" -> {
+                float parsed = parseFloat(key, value);
+                float result = ModConfig.clampMultiplier(parsed);
+                record(key, String.format("%.2f", result), parsed != result);
+                changes.add(builder -> builder.dayMultiplier(result));
+            }
+            case "nightMultiplier" -> {
+                float parsed = parseFloat(key, value);
+                float result = ModConfig.clampMultiplier(parsed);
+                record(key, String.format("%.2f", result), parsed != result);
+                changes.add(builder -> builder.nightMultiplier(result));
+            }
+            case "absoluteDayLength" -> {
+                int parsed = parseInt(key, value);
+                int result = ModConfig.clampAbsoluteLength(parsed);
+                record(key, String.valueOf(result), parsed != result);
+                changes.add(builder -> builder.absoluteDayLength(result));
+            }
+            case "absoluteNightLength" -> {
+                int parsed = parseInt(key, value);
+                int result = ModConfig.clampAbsoluteLength(parsed);
+                record(key, String.valueOf(result), parsed != result);
+                changes.add(builder -> builder.absoluteNightLength(result));
+            }
+            case "logPhaseChanges" -> {
+                boolean result = parseBoolean(key, value);
+                record(key, String.valueOf(result), false);
+                changes.add(builder -> builder.logPhaseChanges(result));
+            }
+            case "timeSyncThreshold" -> {
+                int parsed = parseInt(key, value);
+                int result = ModConfig.clampTimeSyncThreshold(parsed);
+                record(key, String.valueOf(result), parsed != result);
+                changes.add(builder -> builder.timeSyncThreshold(result));
+            }
+            case "speedCurve" -> {
+                String result = value.equalsIgnoreCase("none") ? "" : value;
+                if (!result.isEmpty() && !current.curves().containsKey(result)) {
+                    throw new IllegalArgumentException("Unknown speed curve '" + value + "'");
+                }
+                record(key, result.isEmpty() ? "none" : result, false);
+                changes.add(builder -> builder.speedCurve(result));
+            }
+            case "calendarEnabled" -> {
+                boolean result = parseBoolean(key, value);
+                record(key, String.valueOf(result), false);
+                changes.add(builder -> builder.calendarEnabled(result));
+            }
+            case "calendarYearLength" -> {
+                int parsed = parseInt(key, value);
+                int result = ModConfig.clampYearLength(parsed);
+                record(key, String.valueOf(result), parsed != result);
+                changes.add(builder -> builder.calendarYearLength(result));
+            }
+            case "calendarShortestPhase" -> {
+                int parsed = parseInt(key, value);
+                int result = ModConfig.clampCalendarPhase(parsed);
+                record(key, String.valueOf(result), parsed != result);
+                changes.add(builder -> builder.calendarShortestPhase(result));
+            }
+            case "calendarLongestPhase" -> {
+                int parsed = parseInt(key, value);
+                int result = ModConfig.clampCalendarPhase(parsed);
+                record(key, String.valueOf(result), parsed != result);
+                changes.add(builder -> builder.calendarLongestPhase(result));
+            }
+            case "wallClockMode" -> {
+                boolean result = parseBoolean(key, value);
+                record(key, String.valueOf(result), false);
+                changes.add(builder -> builder.wallClockMode(result));
+            }
+            case "maxCatchUpTicks" -> {
+                int parsed = parseInt(key, value);
+                int result = ModConfig.clampCatchUpTicks(parsed);
+                record(key, String.valueOf(result), parsed != result);
+                changes.add(builder -> builder.maxCatchUpTicks(result));
+            }
+            case "idleMode" -> {
+                IdleMode result;
+                try {
+                    result = IdleMode.byName(value);
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("idleMode: '" + value + "' is not keep, freeze or jump");
+                }
+                record(key, result.configName(), false);
+                changes.add(builder -> builder.idleMode(result));
+            }
+            case "idleJumpTime" -> {
+                int parsed = parseInt(key, value);
+                int result = ModConfig.clampTimeOfDay(parsed);
+                record(key, String.valueOf(result), parsed != result);
+                changes.add(builder -> builder.idleJumpTime(result));
+            }
+            case "compactMenu" -> {
+                boolean result = parseBoolean(key, value);
+                record(key, String.valueOf(result), false);
+                changes.add(builder -> builder.compactMenu(result));
+            }
+            default -> throw new IllegalArgumentException("Unknown key '" + key + "'");
+        }
+    }
+
+    private void record(String key, String value, boolean wasClamped) {
+        if (!keys.contains(key)) {
+            keys.add(key);
+        }
+        applied.add(key + "=" + value);
+        if (wasClamped) {
+            clamped.add(key);
+        }
+    }
+
+    /** Parses a finite number; "NaN" and "Infinity", which Java accepts, are rejected too. */
+    private static float parseFloat(String key, String value) {
+        float parsed;
+        try {
+            parsed = Float.parseFloat(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(key + ": '" + value + "' is not a number");
+        }
+        if (!Float.isFinite(parsed)) {
+            throw new IllegalArgumentException(key + ": '" + value + "' is not a number");
+        }
+        return parsed;
+    }
+
+    private static int parseInt(String key, String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(key + ": '" + value + "' is not a whole number");
+        }
+    }
+
+    private static boolean parseBoolean(String key, String value) {
+        if (value.equalsIgnoreCase("true") || value.equalsIgnoreCase("on")) {
+            return true;
+        }
+        if (value.equalsIgnoreCase("false") || value.equalsIgnoreCase("off")) {
+            return false;
+        }
+        throw new IllegalArgumentException(key + ": '" + value + "' is not true or false");
+    }
+
+    /**
+     * Formats the value of one of the {@link #KEYS} in a snapshot the way it is shown in
+     * feedback and recorded in the {@link AuditLog}.
+     */
+    static String describe(ModConfig config, String key) {
+        return switch (key) {
+            case "dayMultiplier" -> String.format("%.2f", config.dayMultiplier());
+            case "nightMultiplier" -> String.format("%.2f", config.nightMultiplier());
+            case "absoluteDayLength" -> String.valueOf(config.absoluteDayLength());
+            case "absoluteNightLength" -> String.valueOf(config.absoluteNightLength());
+            case "logPhaseChanges" -> String.valueOf(config.logPhaseChanges());
+            case "timeSyncThreshold" -> String.valueOf(config.timeSyncThreshold());
+            case "speedCurve" -> config.speedCurve().isEmpty() ? "none" : config.speedCurve();
+            case "calendarEnabled" -> String.valueOf(config.calendarEnabled());
+            case "calendarYearLength" -> String.valueOf(config.calendarYearLength());
+            case "calendarShortestPhase" -> String.valueOf(config.calendarShortestPhase());
+            case "calendarLongestPhase" -> String.valueOf(config.calendarLongestPhase());
+            case "wallClockMode" -> String.valueOf(config.wallClockMode());
+            case "maxCatchUpTicks" -> String.valueOf(config.maxCatchUpTicks());
+            case "idleMode" -> config.idleMode().configName();
+            case "idleJumpTime" -> String.valueOf(config.idleJumpTime());
+            case "compactMenu" -> String.valueOf(config.compactMenu());
+            default -> throw new IllegalArgumentException("Unknown key '" + key + "'");
+        };
+    }
+
+    /** Applies all changes as one published snapshot, in the order they were given. */
+    ModConfig apply() {
+        return ModConfig.update(builder -> changes.forEach(change -> change.accept(builder)));
+    }
+
+    /** Whether the batch asked to be saved. */
+    boolean save() {
+        return save;
+    }
+
+    /** The keys changed by this batch, each once, in the order given. */
+    List<String> keys() {
+        return keys;
+    }
+
+    /** The applied values as {@code key=value}, after clamping. */
+    List<String> applied() {
+        return applied;
+    }
+
+    /** Keys whose value had to be clamped. */
+    List<String> clamped() {
+        return clamped;
+    }
+}
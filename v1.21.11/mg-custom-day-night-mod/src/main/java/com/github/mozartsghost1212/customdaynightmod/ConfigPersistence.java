@@ -0,0 +1,164 @@
+package com.github.mozartsghost1212.customdaynightmod;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs configuration file I/O on a background thread.
+ * <p>
+ * Saves are debounced: every {@link #requestSave()} made within {@link #SAVE_DEBOUNCE_MS}
+ * of the first pending one shares a single write of the newest {@link ModConfig} snapshot,
+ * so clicking through the chat menu does not hit the disk once per click. Writes are atomic
+ * (temporary file + move, see {@link ModConfig#writeConfig(ModConfig)}).
+ * </p>
+ * <p>
+ * All methods return {@link CompletableFuture}s completed on the I/O thread. Callers that need
+ * to touch game state or send feedback should continue on the server thread, e.g. with
+ * {@code whenCompleteAsync(..., server)}.
+ * </p>
+ */
+public final class ConfigPersistence {
+
+    /** Window in which successive save requests are collapsed into one write. */
+    public static final long SAVE_DEBOUNCE_MS = 250;
+    private static final long FLUSH_TIMEOUT_MS = 5000;
+
+    private static final ScheduledExecutorService EXECUTOR = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "CustomDayNightMod-IO");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final Object LOCK = new Object();
+    /** Result shared by all save requests waiting for the next write, or null if none is pending. */
+    private static CompletableFuture<Void> pendingSave = null;
+    /** Successful writes of the configuration file since startup. */
+    private static final AtomicLong SAVES = new AtomicLong();
+    /** Modification time and size of the file right after this mod last wrote it, or null. */
+    private static volatile FileStamp ownWrite = null;
+
+    private ConfigPersistence() {
+    }
+
+    /**
+     * Schedules a write of the current configuration. Requests arriving while a write is
+     * already scheduled join it instead of causing another one.
+     *
+     * @return a future completed once the configuration has been written
+     */
+    public static CompletableFuture<Void> requestSave() {
+        synchronized (LOCK) {
+            if (pendingSave == null) {
+                pendingSave = new CompletableFuture<>();
+                EXECUTOR.schedule(ConfigPersistence::writePending, SAVE_DEBOUNCE_MS, TimeUnit.MILLISECONDS);
+            }
+            return pendingSave;
+        }
+    }
+
+    /**
+     * Reads and validates the configuration file on the I/O thread. The result is not
+     * published; the caller decides when to apply it.
+     */
+    public static CompletableFuture<ModConfig> loadAsync() {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return ModConfig.readConfig("reload");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, EXECUTOR);
+    }
+
+    /** Number of times the configuration file has been written successfully. */
+    public static long getSaveCount() {
+        return SAVES.get();
+    }
+
+    /**
+     * Returns whether the file on disk is still the one this mod wrote last, judged by its
+     * modification time and size. A snapshot changed in-game after that write and not saved yet
+     * is newer than the file, so the {@link ConfigWatcher} must not publish what it reads in
+     * that case. Any later write by someone else, even one restoring the same settings, changes
+     * the stamp and is no longer taken for the mod's own.
+     */
+    static boolean isOwnWrite() {
+        FileStamp written = ownWrite;
+        if (written == null) {
+            return false;
+        }
+        try {
+            return written.equals(FileStamp.read(ModConfig.CONFIG_PATH));
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /** Runs another small file write, such as an {@link AuditLog} line, on the I/O thread. */
+    static void execute(Runnable task) {
+        EXECUTOR.execute(task);
+    }
+
+    /**
+     * Writes any pending save immediately and waits for it and any other queued write. Called
+     * when the server stops so the last change made through the menu is not lost.
+     */
+    public static void flush() {
+        CompletableFuture<Void> pending;
+        synchronized (LOCK) {
+            pending = pendingSave;
+        }
+        if (pending == null) {
+            // Still wait for other queued writes such as audit lines
+            pending = CompletableFuture.runAsync(() -> { }, EXECUTOR);
+        } else {
+            EXECUTOR.execute(ConfigPersistence::writePending);
+        }
+        try {
+            pending.get(FLUSH_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            ModLog.warn(ModLog.Category.IO, "event=config_flush_failed error=\"{}\"", e.toString());
+        }
+    }
+
+    private static void writePending() {
+        CompletableFuture<Void> result;
+        synchronized (LOCK) {
+            result = pendingSave;
+            pendingSave = null;
+        }
+        if (result == null) {
+            return; // already written by an earlier flush
+        }
+        ModConfig config = ModConfig.get();
+        try {
+            ModConfig.writeConfig(config);
+            // The watcher waits ConfigWatcher.DEBOUNCE_MS after the event, so this is in place first
+            ownWrite = FileStamp.read(ModConfig.CONFIG_PATH);
+            SAVES.incrementAndGet();
+            ModLog.info(ModLog.Category.IO, "event=config_saved path={}", ModConfig.CONFIG_PATH);
+            result.complete(null);
+        } catch (IOException e) {
+            ModLog.warn(ModLog.Category.IO, e, "event=config_save_failed path={}", ModConfig.CONFIG_PATH);
+            result.completeExceptionally(e);
+        }
+    }
+
+    /** Identifies one version of a file without reading it. */
+    private record FileStamp(FileTime modified, long size) {
+
+        static FileStamp read(Path path) throws IOException {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            return new FileStamp(attributes.lastModifiedTime(), attributes.size());
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.github.mozartsghost1212.customdaynightmod;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Optional hot reload of {@code config/customdaynightmod.properties}.
+ * <p>
+ * When {@code watch_config_file=true}, a daemon thread watches the config directory with a
+ * {@link WatchService}. Bursts of events (editors often write a file several times in a row)
+ * are collapsed by waiting until the directory has been quiet for {@link #DEBOUNCE_MS}. The
+ * file is then parsed and clamped on the watcher thread, and the resulting snapshot is handed
+ * to the server executor, so it is published between two ticks. The tick thread never reads
+ * the disk.
+ * </p>
+ * <p>
+ * Events caused by the mod's own saves are skipped when the file still has the modification
+ * time and size {@link ConfigPersistence} recorded after writing it: a change made in-game after
+ * that save may not be written yet, and publishing the older file would silently revert it.
+ * Every other version of the file is compared with the current snapshot only, so an external
+ * edit that restores the mod's last saved settings is still applied.
+ * The watcher is started and stopped by {@link #update} whenever the configuration snapshot
+ * changes, so switching {@code watch_config_file} needs no restart.
+ * </p>
+ */
+public final class ConfigWatcher {
+
+    /** Quiet period after the last file event before the file is reloaded. */
+    public static final long DEBOUNCE_MS = 500;
+
+    private static WatchService watchService = null;
+    private static Thread thread = null;
+
+    private ConfigWatcher() {
+    }
+
+    /**
+     * Starts or stops the watcher to match a configuration snapshot. Does nothing if it is
+     * already in the requested state.
+     *
+     * @param serverExecutor executor running tasks on the server thread (the server itself)
+     */
+    public static synchronized void update(Executor serverExecutor, ModConfig config) {
+        if (config.watchConfigFile()) {
+            start(serverExecutor);
+        } else {
+            stop();
+        }
+    }
+
+    /**
+     * Starts watching the config file if it is enabled in the current configuration.
+     *
+     * @param serverExecutor executor running tasks on the server thread (the server itself)
+     */
+    public static synchronized void start(Executor serverExecutor) {
+        if (thread != null || !ModConfig.get().watchConfigFile()) {
+            return;
+        }
+        Path directory = ModConfig.CONFIG_PATH.toAbsolutePath().getParent();
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            directory.register(watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            ModLog.warn(ModLog.Category.IO, "event=config_watch_failed error=\"{}\"", e.toString());
+            return;
+        }
+        WatchService service = watchService;
+        thread = new Thread(() -> run(service, serverExecutor), "CustomDayNightMod-ConfigWatcher");
+        thread.setDaemon(true);
+        thread.start();
+        ModLog.info(ModLog.Category.CONFIG, "event=config_watch_started path={}", ModConfig.CONFIG_PATH);
+    }
+
+    /** Stops the watcher thread, if running. */
+    public static synchronized void stop() {
+        if (thread == null) {
+            return;
+        }
+        ModLog.info(ModLog.Category.CONFIG, "event=config_watch_stopped path={}", ModConfig.CONFIG_PATH);
+        try {
+            watchService.close();
+        } catch (IOException ignored) {
+        }
+        thread.interrupt();
+        thread = null;
+        watchService = null;
+    }
+
+    private static void run(WatchService service, Executor serverExecutor) {
+        Path fileName = ModConfig.CONFIG_PATH.getFileName();
+        try {
+            while (true) {
+                if (!drain(service.take(), fileName)) {
+                    continue;
+                }
+                // Debounce: keep consuming events until the directory is quiet
+                WatchKey key;
+                while ((key = service.poll(DEBOUNCE_MS, TimeUnit.MILLISECONDS)) != null) {
+                    drain(key, fileName);
+                }
+                reload(serverExecutor);
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // stopped
+        }
+    }
+
+    /** Consumes the key's events and returns whether any of them concerned the config file. */
+    private static boolean drain(WatchKey key, Path fileName) {
+        boolean relevant = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (fileName.equals(event.context())) {
+                relevant = true;
+            }
+        }
+        key.reset();
+        return relevant;
+    }
+
+    private static void reload(Executor serverExecutor) {
+        if (ConfigPersistence.isOwnWrite()) {
+            return; // our own save, possibly older than the current snapshot
+        }
+        ModConfig config;
+        try {
+            config = ModConfig.readConfig("watch");
+        } catch (IOException | RuntimeException e) {
+            ModLog.warn(ModLog.Category.CONFIG, "event=config_change_ignored error=\"{}\"", e.toString());
+            return;
+        }
+        if (config.hasSameSettings(ModConfig.get())) {
+            return; // an edit that changed nothing
+        }
+        serverExecutor.execute(() -> {
+            ModConfig.publish(config);
+            TickMetrics.recordConfigReload();
+            ModLog.info(ModLog.Category.CONFIG, "event=config_reloaded source=watch version={}", config.version());
+        });
+    }
+}
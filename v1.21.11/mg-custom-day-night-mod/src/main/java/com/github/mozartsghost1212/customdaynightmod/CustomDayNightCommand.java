@@ -3,15 +3,39 @@ package com.github.mozartsghost1212.customdaynightmod;
 import com.mojang.brigadier.CommandDispatcher;
 import com.mojang.brigadier.arguments.FloatArgumentType;
 import com.mojang.brigadier.arguments.IntegerArgumentType;
+import com.mojang.brigadier.arguments.StringArgumentType;
+
+import com.github.mozartsghost1212.customdaynightmod.core.DayPlan;
+import com.github.mozartsghost1212.customdaynightmod.core.LagCompensator;
+import com.github.mozartsghost1212.customdaynightmod.core.SeasonalCalendar;
+import com.github.mozartsghost1212.customdaynightmod.core.SpeedCurve;
+import com.github.mozartsghost1212.customdaynightmod.core.TickTrace;
+import com.github.mozartsghost1212.customdaynightmod.core.TimeAdvanceEngine;
+
+import net.minecraft.command.CommandSource;
 
 import net.minecraft.server.command.CommandManager;
 import net.minecraft.server.command.ServerCommandSource;
+import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.text.ClickEvent;
 import net.minecraft.text.HoverEvent;
 import net.minecraft.text.MutableText;
 import net.minecraft.text.Text;
 import net.minecraft.util.Formatting;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
 /**
  * Handles registration and execution of custom commands for the Custom Day/Night Mod.
  * <p>
@@ -21,25 +45,42 @@ import net.minecraft.util.Formatting;
  *     <li><b>/customdaynight reload</b>: Reloads the mod configuration from disk.</li>
  *     <li><b>/customdaynight save</b>: Saves the current configuration to disk.</li>
  *     <li><b>/customdaynight defaults</b>: Resets all settings to default values.</li>
- *     <li><b>/customdaynight status</b>: Displays the current configuration values.</li>
+ *     <li><b>/customdaynight status</b>: Displays the current configuration values, the server's TPS and lag
+ *     compensation and, with the calendar on, the season.</li>
+ *     <li><b>/customdaynight metrics [on|off|reset]</b>: Shows or controls tick handler metrics.</li>
+ *     <li><b>/customdaynight trace [dump]</b>: Shows the tick trace or copies it to a file for offline analysis.</li>
  *     <li><b>/customdaynight togglePhaseLogging</b>: Toggles logging of day/night phase changes.</li>
+ *     <li><b>/customdaynight toggleCalendar</b>: Turns the seasonal calendar on or off.</li>
+ *     <li><b>/customdaynight toggleWallClock</b>: Turns wall-clock (lag-compensated) mode on or off.</li>
+ *     <li><b>/customdaynight toggleCompactMenu</b>: Re-sends only changed menu rows after a setting changes.</li>
  *     <li><b>/customdaynight set &lt;property&gt; &lt;value&gt;</b>: Sets a configuration property.</li>
+ *     <li><b>/customdaynight set speedCurve &lt;name|none&gt;</b>: Selects a speed curve for the Overworld.</li>
+ *     <li><b>/customdaynight set idleMode &lt;keep|freeze|jump&gt;</b>: Chooses what happens to time while nobody is online.</li>
+ *     <li><b>/customdaynight set &lt;key=value&gt;... [save]</b>: Applies several properties at once with a single
+ *     summary, optionally saving once (see {@link ConfigBatch}).</li>
  * </ul>
  * <p>
  * The interactive menu uses clickable chat text components so no client-side mod is required.
+ * It is sent as one multi-line message per view.
  * All commands require operator permission level 4.
  */
 public class CustomDayNightCommand {
 
+    /** Who may run the command, and so who is told about changes made through it. */
+    static final Predicate<ServerCommandSource> PERMISSION =
+            CommandManager.requirePermissionLevel(CommandManager.OWNERS_CHECK);
+
     private static final float MULTIPLIER_STEP = 0.25f;
     private static final int ABSOLUTE_LENGTH_STEP = 1000;
+    private static final String ABSOLUTE_LENGTH_RANGE =
+        "min: " + ModConfig.MIN_ABSOLUTE_LENGTH + ", max: " + ModConfig.MAX_ABSOLUTE_LENGTH + ", 0=off";
 
     public static void register(CommandDispatcher<ServerCommandSource> dispatcher) {
         dispatcher.register(CommandManager.literal("customdaynight")
-            .requires(CommandManager.requirePermissionLevel(CommandManager.OWNERS_CHECK)) // full ops
-            .executes(ctx -> showMenu(ctx.getSource()))
+            .requires(PERMISSION) // full ops
+            .executes(ctx -> showFullMenu(ctx.getSource()))
             .then(CommandManager.literal("menu")
-                .executes(ctx -> showMenu(ctx.getSource())))
+                .executes(ctx -> showFullMenu(ctx.getSource())))
             .then(CommandManager.literal("reload")
                 .executes(ctx -> reload(ctx.getSource())))
             .then(CommandManager.literal("save")
@@ -48,8 +89,26 @@ public class CustomDayNightCommand {
                 .executes(ctx -> resetDefaults(ctx.getSource())))
             .then(CommandManager.literal("status")
                 .executes(ctx -> status(ctx.getSource())))
+            .then(CommandManager.literal("metrics")
+                .executes(ctx -> metrics(ctx.getSource()))
+                .then(CommandManager.literal("on")
+                    .executes(ctx -> setMetricsSampling(ctx.getSource(), true)))
+                .then(CommandManager.literal("off")
+                    .executes(ctx -> setMetricsSampling(ctx.getSource(), false)))
+                .then(CommandManager.literal("reset")
+                    .executes(ctx -> resetMetrics(ctx.getSource()))))
+            .then(CommandManager.literal("trace")
+                .executes(ctx -> traceStatus(ctx.getSource()))
+                .then(CommandManager.literal("dump")
+                    .executes(ctx -> dumpTrace(ctx.getSource()))))
             .then(CommandManager.literal("togglePhaseLogging")
                 .executes(ctx -> togglePhaseLogging(ctx.getSource())))
+            .then(CommandManager.literal("toggleCalendar")
+                .executes(ctx -> toggleCalendar(ctx.getSource())))
+            .then(CommandManager.literal("toggleCompactMenu")
+                .executes(ctx -> toggleCompactMenu(ctx.getSource())))
+            .then(CommandManager.literal("toggleWallClock")
+                .executes(ctx -> toggleWallClock(ctx.getSource())))
             .then(CommandManager.literal("set")
                 .then(CommandManager.literal("dayMultiplier")
                     .then(CommandManager.argument("value", FloatArgumentType.floatArg(0.01f))
@@ -63,100 +122,180 @@ public class CustomDayNightCommand {
                 .then(CommandManager.literal("absoluteNightLength")
                     .then(CommandManager.argument("value", IntegerArgumentType.integer(0))
                         .executes(ctx -> setAbsoluteNightLength(ctx.getSource(), IntegerArgumentType.getInteger(ctx, "value")))))
+                .then(CommandManager.literal("speedCurve")
+                    .then(CommandManager.argument("name", StringArgumentType.word())
+                        .suggests((ctx, builder) -> CommandSource.suggestMatching(curveChoices(ModConfig.get()), builder))
+                        .executes(ctx -> setSpeedCurve(ctx.getSource(), StringArgumentType.getString(ctx, "name")))))
+                .then(CommandManager.literal("idleMode")
+                    .then(CommandManager.argument("mode", StringArgumentType.word())
+                        .suggests((ctx, builder) -> CommandSource.suggestMatching(idleModeChoices(), builder))
+                        .executes(ctx -> setIdleMode(ctx.getSource(), StringArgumentType.getString(ctx, "mode")))))
+                .then(CommandManager.literal("idleJumpTime")
+                    .then(CommandManager.argument("value", IntegerArgumentType.integer(0, ModConfig.MAX_TIME_OF_DAY))
+                        .executes(ctx -> setIdleJumpTime(ctx.getSource(), IntegerArgumentType.getInteger(ctx, "value")))))
+                .then(CommandManager.argument("changes", StringArgumentType.greedyString())
+                    .executes(ctx -> setBatch(ctx.getSource(), StringArgumentType.getString(ctx, "changes"))))
             )
         );
     }
 
     // ── Interactive Menu ──────────────────────────────────────────────
 
-    private static final int DEFAULT_HALF_CYCLE = 12000; // vanilla day or night length in ticks
     private static final int TICKS_PER_SECOND = 20;
 
+    /** Rendered menu, shared by all viewers until the configuration changes. */
+    private static final CachedMenu MENU = newMenu();
+
+    /**
+     * Menu version each player was last sent, keyed by player UUID. Entries are dropped when the
+     * player disconnects; other sources (console, RCON, command blocks) always get the full menu.
+     */
+    private static final Map<UUID, Integer> SEEN_VERSIONS = new HashMap<>();
+
+    /** Sends the whole menu as a single message. */
+    private static int showFullMenu(ServerCommandSource source) {
+        ModConfig config = ModConfig.get();
+        send(source, MENU.renderComposite(config));
+        markSeen(source, config);
+        return 1;
+    }
+
+    /**
+     * Re-shows the menu after a change. In compact mode a viewer who has seen the menu before
+     * only gets the rows that changed since then, or nothing if none did.
+     */
     private static int showMenu(ServerCommandSource source) {
+        ModConfig config = ModConfig.get();
+        ServerPlayerEntity player = source.getPlayer();
+        Integer seen = player == null ? null : SEEN_VERSIONS.get(player.getUuid());
+        if (!config.compactMenu() || seen == null) {
+            return showFullMenu(source);
+        }
+        Text changes = MENU.renderChanges(config, seen);
+        if (changes != null) {
+            send(source, changes);
+        }
+        markSeen(source, config);
+        return 1;
+    }
+
+    /** Remembers the menu version a player was sent; does nothing for other sources. */
+    private static void markSeen(ServerCommandSource source, ModConfig config) {
+        ServerPlayerEntity player = source.getPlayer();
+        if (player != null) {
+            SEEN_VERSIONS.put(player.getUuid(), config.version());
+        }
+    }
+
+    /** Forgets the menu version a player was sent, when they disconnect. */
+    static void forgetViewer(UUID player) {
+        SEEN_VERSIONS.remove(player);
+    }
+
+    /**
+     * Creates the interactive menu. Each row names the configuration value it is rendered from,
+     * so a change only rebuilds the rows that show it (see {@link CachedMenu}).
+     * Kept separate from sending so it can be exercised without a command source.
+     */
+    static CachedMenu newMenu() {
         MutableText divider = Text.literal("═══════════════════════════════════").formatted(Formatting.GOLD);
         MutableText thinDiv = Text.literal("  ──────────────────────────────────").formatted(Formatting.DARK_GRAY);
         MutableText title = Text.literal("  MozartsGhost1212 Custom Day/Night Mod").formatted(Formatting.YELLOW);
 
-        send(source, divider);
-        send(source, title);
-        send(source, divider);
+        // Action buttons
+        MutableText actions = Text.literal("  ")
+            .append(createButton("[Save]", "/customdaynight save", "Save settings to file", Formatting.GREEN))
+            .append(Text.literal("  "))
+            .append(createButton("[Reload]", "/customdaynight reload", "Reload settings from file", Formatting.AQUA))
+            .append(Text.literal("  "))
+            .append(createButton("[Defaults]", "/customdaynight defaults", "Reset to default values", Formatting.RED));
+        MutableText tip = Text.literal("  ").append(
+            Text.literal("Tip: Press T to open chat, click a button, then press Enter.").formatted(Formatting.DARK_GRAY, Formatting.ITALIC));
+
+        List<CachedMenu.Row> rows = new ArrayList<>();
+        rows.add(CachedMenu.Row.fixed(divider));
+        rows.add(CachedMenu.Row.fixed(title));
+        rows.add(CachedMenu.Row.fixed(divider));
 
         // Day Multiplier
-        send(source, createFloatRow("Day Multiplier", ModConfig.dayMultiplier, "dayMultiplier", MULTIPLIER_STEP));
+        rows.add(CachedMenu.Row.of(ModConfig::dayMultiplier, config ->
+            createFloatRow("Day Multiplier", config.dayMultiplier(), "dayMultiplier", MULTIPLIER_STEP)));
 
         // Night Multiplier
-        send(source, createFloatRow("Night Multiplier", ModConfig.nightMultiplier, "nightMultiplier", MULTIPLIER_STEP));
+        rows.add(CachedMenu.Row.of(ModConfig::nightMultiplier, config ->
+            createFloatRow("Night Multiplier", config.nightMultiplier(), "nightMultiplier", MULTIPLIER_STEP)));
 
-        send(source, Text.empty());
+        rows.add(CachedMenu.Row.fixed(Text.empty()));
 
         // Absolute Day Length
-        send(source, createIntRow("Abs. Day Length", ModConfig.absoluteDayLength, "absoluteDayLength", ABSOLUTE_LENGTH_STEP));
+        rows.add(CachedMenu.Row.of(ModConfig::absoluteDayLength, config ->
+            createIntRow("Abs. Day Length", config.absoluteDayLength(), "absoluteDayLength", ABSOLUTE_LENGTH_STEP)));
 
         // Absolute Night Length
-        send(source, createIntRow("Abs. Night Length", ModConfig.absoluteNightLength, "absoluteNightLength", ABSOLUTE_LENGTH_STEP));
+        rows.add(CachedMenu.Row.of(ModConfig::absoluteNightLength, config ->
+            createIntRow("Abs. Night Length", config.absoluteNightLength(), "absoluteNightLength", ABSOLUTE_LENGTH_STEP)));
 
-        send(source, Text.empty());
+        rows.add(CachedMenu.Row.fixed(Text.empty()));
 
         // Log Phase Changes
-        send(source, createBoolRow("Phase Logging", ModConfig.logPhaseChanges));
+        rows.add(CachedMenu.Row.of(ModConfig::logPhaseChanges, config ->
+            createBoolRow("Phase Logging", config.logPhaseChanges(), "/customdaynight togglePhaseLogging",
+                "Toggle phase logging on/off")));
 
-        send(source, thinDiv);
+        // Compact Menu
+        rows.add(CachedMenu.Row.of(ModConfig::compactMenu, config ->
+            createBoolRow("Compact Menu", config.compactMenu(), "/customdaynight toggleCompactMenu",
+                "After a change, only re-send the rows that changed")));
 
-        // ── Result Summary ──
-        int dayTicks = computeEffectiveTicks(ModConfig.absoluteDayLength, ModConfig.dayMultiplier);
-        int nightTicks = computeEffectiveTicks(ModConfig.absoluteNightLength, ModConfig.nightMultiplier);
-        int totalTicks = dayTicks + nightTicks;
+        // Speed Curve (keyed on the selection and the defined curves, which make up the buttons)
+        rows.add(CachedMenu.Row.of(config -> config.speedCurve() + "|" + String.join(",", config.curves().keySet()),
+            CustomDayNightCommand::createCurveRow));
 
-        send(source, Text.literal("  ☀ Day: ").formatted(Formatting.GRAY)
-            .append(Text.literal(formatDuration(dayTicks)).formatted(Formatting.GOLD, Formatting.BOLD))
-            .append(Text.literal("  (" + dayTicks + " ticks)").formatted(Formatting.DARK_GRAY)));
+        // Seasonal Calendar
+        rows.add(CachedMenu.Row.of(config -> config.calendarEnabled() + "|" + config.calendarYearLength() + "|"
+                + config.calendarShortestPhase() + "|" + config.calendarLongestPhase(),
+            CustomDayNightCommand::createCalendarRow));
 
-        send(source, Text.literal("  ☽ Night: ").formatted(Formatting.GRAY)
-            .append(Text.literal(formatDuration(nightTicks)).formatted(Formatting.BLUE, Formatting.BOLD))
-            .append(Text.literal("  (" + nightTicks + " ticks)").formatted(Formatting.DARK_GRAY)));
+        // Wall Clock
+        rows.add(CachedMenu.Row.of(config -> config.wallClockMode() + "|" + config.maxCatchUpTicks(),
+            CustomDayNightCommand::createWallClockRow));
 
-        send(source, Text.literal("  ⏱ Full Cycle: ").formatted(Formatting.GRAY)
-            .append(Text.literal(formatDuration(totalTicks)).formatted(Formatting.WHITE, Formatting.BOLD))
-            .append(Text.literal("  (" + totalTicks + " ticks)").formatted(Formatting.DARK_GRAY)));
+        // Idle Mode
+        rows.add(CachedMenu.Row.of(config -> config.idleMode() + "|" + config.idleJumpTime(),
+            CustomDayNightCommand::createIdleRow));
 
-        send(source, thinDiv);
+        rows.add(CachedMenu.Row.fixed(thinDiv));
 
-        // Action buttons
-        MutableText actions = Text.literal("  ")
-            .append(createButton("[Save]", "/customdaynight save", "Save settings to file", Formatting.GREEN))
-            .append(Text.literal("  "))
-            .append(createButton("[Reload]", "/customdaynight reload", "Reload settings from file", Formatting.AQUA))
-            .append(Text.literal("  "))
-            .append(createButton("[Defaults]", "/customdaynight defaults", "Reset to default values", Formatting.RED));
+        // ── Result Summary ──
+        rows.add(CachedMenu.Row.of(ModConfig::effectiveDayTicks, config ->
+            createDurationRow("  ☀ Day: ", config.effectiveDayTicks(), Formatting.GOLD)));
 
-        send(source, actions);
-        send(source, Text.literal("  ").append(
-            Text.literal("Tip: Press T to open chat, click a button, then press Enter.").formatted(Formatting.DARK_GRAY, Formatting.ITALIC)));
-        send(source, divider);
+        rows.add(CachedMenu.Row.of(ModConfig::effectiveNightTicks, config ->
+            createDurationRow("  ☽ Night: ", config.effectiveNightTicks(), Formatting.BLUE)));
 
-        return 1;
-    }
+        rows.add(CachedMenu.Row.of(config -> config.effectiveDayTicks() + config.effectiveNightTicks(), config ->
+            createDurationRow("  ⏱ Full Cycle: ", config.effectiveDayTicks() + config.effectiveNightTicks(), Formatting.WHITE)));
 
-    // ── Duration Helpers ──────────────────────────────────────────────
+        rows.add(CachedMenu.Row.of(ModConfig::timeSyncThreshold, config ->
+            Text.literal("  ⇄ Time Sync: ").formatted(Formatting.GRAY)
+                .append(Text.literal(config.timeSyncThreshold() > 0
+                    ? "drift ≥ " + config.timeSyncThreshold() + " ticks" : "vanilla only").formatted(Formatting.WHITE))));
 
-    /**
-     * Computes the effective real-time duration in ticks for a phase.
-     * If absoluteLength > 0, it is used directly. Otherwise, the vanilla
-     * half-cycle (12 000 ticks) is scaled by the inverse of the multiplier.
-     */
-    private static int computeEffectiveTicks(int absoluteLength, float multiplier) {
-        if (absoluteLength > 0) {
-            return absoluteLength;
-        }
-        // multiplier scales speed, so real-time duration = base / multiplier
-        return Math.round(DEFAULT_HALF_CYCLE / multiplier);
+        rows.add(CachedMenu.Row.fixed(thinDiv));
+        rows.add(CachedMenu.Row.fixed(actions));
+        rows.add(CachedMenu.Row.fixed(tip));
+        rows.add(CachedMenu.Row.fixed(divider));
+
+        return new CachedMenu(rows);
     }
 
+    // ── Duration Helpers ──────────────────────────────────────────────
+
     /**
      * Formats a tick count into a human-readable duration string.
      * Examples: "10m 0s", "1h 23m 20s", "30s"
      */
-    private static String formatDuration(int ticks) {
+    static String formatDuration(int ticks) {
         int totalSeconds = ticks / TICKS_PER_SECOND;
         int hours = totalSeconds / 3600;
         int minutes = (totalSeconds % 3600) / 60;
@@ -231,96 +370,440 @@ public class CustomDayNightCommand {
                 "Type a custom value", Formatting.YELLOW));
     }
 
-    private static MutableText createBoolRow(String label, boolean value) {
+    private static MutableText createDurationRow(String label, int ticks, Formatting color) {
+        return Text.literal(label).formatted(Formatting.GRAY)
+            .append(Text.literal(formatDuration(ticks)).formatted(color, Formatting.BOLD))
+            .append(Text.literal("  (" + ticks + " ticks)").formatted(Formatting.DARK_GRAY));
+    }
+
+    private static MutableText createBoolRow(String label, boolean value, String command, String tooltip) {
         return Text.literal("  " + label + ": ").formatted(Formatting.GRAY)
             .append(Text.literal(value ? "ON" : "OFF")
                 .formatted(value ? Formatting.GREEN : Formatting.RED, Formatting.BOLD))
             .append(Text.literal("  "))
-            .append(createButton("[Toggle]", "/customdaynight togglePhaseLogging",
-                "Toggle phase logging on/off", Formatting.YELLOW));
+            .append(createButton("[Toggle]", command, tooltip, Formatting.YELLOW));
+    }
+
+    private static MutableText createCurveRow(ModConfig config) {
+        SpeedCurve active = config.overworldSchedule().curve();
+        MutableText row = Text.literal("  Speed Curve: ").formatted(Formatting.GRAY)
+            .append(Text.literal(active != null ? active.name() : "none")
+                .formatted(active != null ? Formatting.AQUA : Formatting.DARK_GRAY, Formatting.BOLD));
+        if (config.curves().isEmpty()) {
+            return row.append(Text.literal("  (define curve.<name> in the config)").formatted(Formatting.DARK_GRAY));
+        }
+        row.append(Text.literal(" "));
+        for (SpeedCurve curve : config.curves().values()) {
+            if (curve == active) {
+                continue;
+            }
+            row.append(Text.literal(" "))
+                .append(createButton("[" + curve.name() + "]", "/customdaynight set speedCurve " + curve.name(),
+                    "Follow " + curve.definition(), Formatting.AQUA));
+        }
+        if (active != null) {
+            row.append(Text.literal(" "))
+                .append(createButton("[None]", "/customdaynight set speedCurve none",
+                    "Use the multipliers and absolute lengths again", Formatting.RED));
+        }
+        return row;
+    }
+
+    private static MutableText createCalendarRow(ModConfig config) {
+        boolean on = config.calendarEnabled();
+        return Text.literal("  Calendar: ").formatted(Formatting.GRAY)
+            .append(Text.literal(on ? "ON" : "OFF").formatted(on ? Formatting.GREEN : Formatting.RED, Formatting.BOLD))
+            .append(Text.literal("  (" + config.calendarYearLength() + "-day year, phases "
+                + formatDuration(config.calendarShortestPhase()) + " – " + formatDuration(config.calendarLongestPhase())
+                + ")").formatted(Formatting.DARK_GRAY))
+            .append(Text.literal("  "))
+            .append(createButton("[Toggle]", "/customdaynight toggleCalendar",
+                "Toggle the seasonal calendar on/off", Formatting.YELLOW));
+    }
+
+    private static MutableText createWallClockRow(ModConfig config) {
+        boolean on = config.wallClockMode();
+        return Text.literal("  Wall Clock: ").formatted(Formatting.GRAY)
+            .append(Text.literal(on ? "ON" : "OFF").formatted(on ? Formatting.GREEN : Formatting.RED, Formatting.BOLD))
+            .append(Text.literal("  (catch-up ≤ " + formatDuration(config.maxCatchUpTicks()) + " per tick)")
+                .formatted(Formatting.DARK_GRAY))
+            .append(Text.literal("  "))
+            .append(createButton("[Toggle]", "/customdaynight toggleWallClock",
+                "Advance time with real time, compensating for server lag", Formatting.YELLOW));
+    }
+
+    private static MutableText createIdleRow(ModConfig config) {
+        IdleMode active = config.idleMode();
+        MutableText row = Text.literal("  When Empty: ").formatted(Formatting.GRAY)
+            .append(Text.literal(active.name()).formatted(Formatting.AQUA, Formatting.BOLD));
+        if (active == IdleMode.JUMP) {
+            row.append(Text.literal(" to " + config.idleJumpTime()).formatted(Formatting.AQUA));
+        }
+        row.append(Text.literal(" "));
+        for (IdleMode mode : IdleMode.values()) {
+            if (mode != active) {
+                row.append(Text.literal(" "))
+                    .append(createButton("[" + mode.configName() + "]", "/customdaynight set idleMode " + mode.configName(),
+                        idleModeTooltip(mode), Formatting.YELLOW));
+            }
+        }
+        if (active == IdleMode.JUMP) {
+            row.append(Text.literal(" "))
+                .append(createSuggestButton("[✎]", "/customdaynight set idleJumpTime ",
+                    "Set the time of day (0–23999) to jump to", Formatting.YELLOW));
+        }
+        return row;
+    }
+
+    private static String idleModeTooltip(IdleMode mode) {
+        return switch (mode) {
+            case KEEP -> "Keep advancing time while nobody is online";
+            case FREEZE -> "Stop time while nobody is online";
+            case JUMP -> "Stop time while nobody is online, then jump to a set time when someone joins";
+        };
+    }
+
+    /** Values accepted by {@code set idleMode}. */
+    private static List<String> idleModeChoices() {
+        List<String> choices = new ArrayList<>();
+        for (IdleMode mode : IdleMode.values()) {
+            choices.add(mode.configName());
+        }
+        return choices;
+    }
+
+    /** Names accepted by {@code set speedCurve}: the defined curves plus "none". */
+    private static List<String> curveChoices(ModConfig config) {
+        List<String> choices = new ArrayList<>(config.curves().keySet());
+        choices.add("none");
+        return choices;
     }
 
     // ── Set Commands (update value, then re-display menu) ─────────────
+    //
+    // Feedback goes only to the source; the broadcast to other ops is coalesced by
+    // ChangeNotifier, which also writes every change to the audit log.
 
     private static int setDayMultiplier(ServerCommandSource source, float value) {
         float clamped = ModConfig.clampMultiplier(value);
-        ModConfig.dayMultiplier = clamped;
-        if (clamped != value) {
-            source.sendFeedback(() -> Text.literal(CustomDayNightMod.LOG_PREFIX + " Value clamped to "
-                + String.format("%.2f", clamped) + " (allowed: " + ModConfig.MIN_MULTIPLIER + "–" + ModConfig.MAX_MULTIPLIER + ")").formatted(Formatting.RED), true);
-        }
-        source.sendFeedback(() -> Text.literal(CustomDayNightMod.LOG_PREFIX + " Day multiplier set to "
-            + String.format("%.2f", clamped)).formatted(Formatting.GREEN), true);
+        applyChange(source, "dayMultiplier", "Day multiplier", builder -> builder.dayMultiplier(clamped),
+            clamped != value ? "allowed: " + ModConfig.MIN_MULTIPLIER + "–" + ModConfig.MAX_MULTIPLIER : null);
         return showMenu(source);
     }
 
     private static int setNightMultiplier(ServerCommandSource source, float value) {
         float clamped = ModConfig.clampMultiplier(value);
-        ModConfig.nightMultiplier = clamped;
-        if (clamped != value) {
-            source.sendFeedback(() -> Text.literal(CustomDayNightMod.LOG_PREFIX + " Value clamped to "
-                + String.format("%.2f", clamped) + " (allowed: " + ModConfig.MIN_MULTIPLIER + "–" + ModConfig.MAX_MULTIPLIER + ")").formatted(Formatting.RED), true);
-        }
-        source.sendFeedback(() -> Text.literal(CustomDayNightMod.LOG_PREFIX + " Night multiplier set to "
-            + String.format("%.2f", clamped)).formatted(Formatting.GREEN), true);
+        applyChange(source, "nightMultiplier", "Night multiplier", builder -> builder.nightMultiplier(clamped),
+            clamped != value ? "allowed: " + ModConfig.MIN_MULTIPLIER + "–" + ModConfig.MAX_MULTIPLIER : null);
         return showMenu(source);
     }
 
     private static int setAbsoluteDayLength(ServerCommandSource source, int value) {
         int clamped = ModConfig.clampAbsoluteLength(value);
-        ModConfig.absoluteDayLength = clamped;
-        if (clamped != value) {
-            source.sendFeedback(() -> Text.literal(CustomDayNightMod.LOG_PREFIX + " Value clamped to "
-                + clamped + " (min: " + ModConfig.MIN_ABSOLUTE_LENGTH + ", max: " + ModConfig.MAX_ABSOLUTE_LENGTH + ", 0=off)").formatted(Formatting.RED), true);
-        }
-        source.sendFeedback(() -> Text.literal(CustomDayNightMod.LOG_PREFIX + " Absolute day length set to "
-            + clamped).formatted(Formatting.GREEN), true);
+        applyChange(source, "absoluteDayLength", "Absolute day length", builder -> builder.absoluteDayLength(clamped),
+            clamped != value ? ABSOLUTE_LENGTH_RANGE : null);
         return showMenu(source);
     }
 
     private static int setAbsoluteNightLength(ServerCommandSource source, int value) {
         int clamped = ModConfig.clampAbsoluteLength(value);
-        ModConfig.absoluteNightLength = clamped;
-        if (clamped != value) {
-            source.sendFeedback(() -> Text.literal(CustomDayNightMod.LOG_PREFIX + " Value clamped to "
-                + clamped + " (min: " + ModConfig.MIN_ABSOLUTE_LENGTH + ", max: " + ModConfig.MAX_ABSOLUTE_LENGTH + ", 0=off)").formatted(Formatting.RED), true);
+        applyChange(source, "absoluteNightLength", "Absolute night length", builder -> builder.absoluteNightLength(clamped),
+            clamped != value ? ABSOLUTE_LENGTH_RANGE : null);
+        return showMenu(source);
+    }
+
+    private static int setSpeedCurve(ServerCommandSource source, String name) {
+        String selected = name.equalsIgnoreCase("none") ? "" : name;
+        if (!selected.isEmpty() && !ModConfig.get().curves().containsKey(selected)) {
+            source.sendFeedback(() -> Text.literal(CustomDayNightMod.LOG_PREFIX + " Unknown speed curve '" + name
+                + "' (defined: " + String.join(", ", curveChoices(ModConfig.get())) + ")").formatted(Formatting.RED), false);
+            return 0;
         }
-        source.sendFeedback(() -> Text.literal(CustomDayNightMod.LOG_PREFIX + " Absolute night length set to "
-            + clamped).formatted(Formatting.GREEN), true);
+        applyChange(source, "speedCurve", "Speed curve", builder -> builder.speedCurve(selected), null);
+        return showMenu(source);
+    }
+
+    /**
+     * Publishes a change to one setting, tells the source the new value in a single message
+     * (including a clamping note, if any) and hands the change to {@link ChangeNotifier}.
+     *
+     * @param key       property name, as accepted by {@link ConfigBatch}
+     * @param label     name shown in the feedback
+     * @param clampNote allowed range to mention when the value was clamped, or null
+     */
+    private static ModConfig applyChange(ServerCommandSource source, String key, String label,
+                                         Consumer<ModConfig.Builder> change, String clampNote) {
+        ModConfig before = ModConfig.get();
+        ModConfig after = ModConfig.update(change);
+        String value = ConfigBatch.describe(after, key);
+        MutableText feedback = Text.literal(CustomDayNightMod.LOG_PREFIX + " " + label + " set to " + value)
+            .formatted(Formatting.GREEN);
+        if (clampNote != null) {
+            feedback.append(Text.literal(" (clamped; " + clampNote + ")").formatted(Formatting.RED));
+        }
+        source.sendFeedback(() -> feedback, false);
+        ChangeNotifier.record(source, key, ConfigBatch.describe(before, key), value);
+        return after;
+    }
+
+    /**
+     * Applies a {@link ConfigBatch}: everything is validated first, then published as one snapshot
+     * and reported in one message. The menu is not re-sent, so scripts do not cause a burst of chat.
+     */
+    private static int setBatch(ServerCommandSource source, String input) {
+        ConfigBatch batch;
+        try {
+            batch = ConfigBatch.parse(input, ModConfig.get());
+        } catch (IllegalArgumentException e) {
+            source.sendFeedback(() -> Text.literal(CustomDayNightMod.LOG_PREFIX + " Nothing changed: "
+                + e.getMessage()).formatted(Formatting.RED), false);
+            return 0;
+        }
+        ModConfig before = ModConfig.get();
+        ModConfig after = batch.apply();
+        for (String key : batch.keys()) {
+            ChangeNotifier.record(source, key, ConfigBatch.describe(before, key), ConfigBatch.describe(after, key));
+        }
+        MutableText summary = Text.literal(CustomDayNightMod.LOG_PREFIX + " Set " + String.join(", ", batch.applied()))
+            .formatted(Formatting.GREEN);
+        if (!batch.clamped().isEmpty()) {
+            summary.append(Text.literal(" (clamped: " + String.join(", ", batch.clamped()) + ")").formatted(Formatting.RED));
+        }
+        if (batch.save()) {
+            summary.append(Text.literal(" — saving").formatted(Formatting.GRAY));
+            ConfigPersistence.requestSave().whenCompleteAsync((ignored, error) -> {
+                if (error != null) {
+                    source.sendFeedback(() -> Text.literal(CustomDayNightMod.LOG_PREFIX + " Failed to save configuration: "
+                        + error.getMessage()).formatted(Formatting.RED), false);
+                }
+            }, source.getServer());
+        }
+        source.sendFeedback(() -> summary, false);
+        return batch.applied().size();
+    }
+
+    private static int setIdleMode(ServerCommandSource source, String name) {
+        IdleMode mode;
+        try {
+            mode = IdleMode.byName(name);
+        } catch (IllegalArgumentException e) {
+            source.sendFeedback(() -> Text.literal(CustomDayNightMod.LOG_PREFIX + " Unknown idle mode '" + name
+                + "' (allowed: " + String.join(", ", idleModeChoices()) + ")").formatted(Formatting.RED), false);
+            return 0;
+        }
+        applyChange(source, "idleMode", "Idle mode", builder -> builder.idleMode(mode), null);
+        return showMenu(source);
+    }
+
+    private static int setIdleJumpTime(ServerCommandSource source, int value) {
+        applyChange(source, "idleJumpTime", "Idle jump time", builder -> builder.idleJumpTime(value), null);
         return showMenu(source);
     }
 
     // ── Action Commands ───────────────────────────────────────────────
 
     private static int reload(ServerCommandSource source) {
-        ModConfig.loadConfig();
-        source.sendFeedback(() -> Text.literal(CustomDayNightMod.LOG_PREFIX + " Configuration reloaded from file.")
-            .formatted(Formatting.AQUA), true);
-        return showMenu(source);
+        // Read off-thread, then apply and report back on the server thread
+        ConfigPersistence.loadAsync().whenCompleteAsync((config, error) -> {
+            if (error != null) {
+                source.sendFeedback(() -> Text.literal(CustomDayNightMod.LOG_PREFIX + " Failed to reload configuration: "
+                    + error.getMessage()).formatted(Formatting.RED), false);
+                return;
+            }
+            ModConfig.publish(config);
+            TickMetrics.recordConfigReload();
+            ChangeNotifier.recordAction(source, "reload");
+            source.sendFeedback(() -> Text.literal(CustomDayNightMod.LOG_PREFIX + " Configuration reloaded from file.")
+                .formatted(Formatting.AQUA), false);
+            showMenu(source);
+        }, source.getServer());
+        return 1;
     }
 
     private static int save(ServerCommandSource source) {
-        ModConfig.saveConfig();
-        source.sendFeedback(() -> Text.literal(CustomDayNightMod.LOG_PREFIX + " Configuration saved to file.")
-            .formatted(Formatting.GREEN), true);
+        ConfigPersistence.requestSave().whenCompleteAsync((ignored, error) -> {
+            if (error != null) {
+                source.sendFeedback(() -> Text.literal(CustomDayNightMod.LOG_PREFIX + " Failed to save configuration: "
+                    + error.getMessage()).formatted(Formatting.RED), false);
+                return;
+            }
+            ChangeNotifier.recordAction(source, "save");
+            source.sendFeedback(() -> Text.literal(CustomDayNightMod.LOG_PREFIX + " Configuration saved to file.")
+                .formatted(Formatting.GREEN), false);
+        }, source.getServer());
         return showMenu(source);
     }
 
     private static int resetDefaults(ServerCommandSource source) {
         ModConfig.resetDefaults();
+        ChangeNotifier.recordAction(source, "reset");
         source.sendFeedback(() -> Text.literal(CustomDayNightMod.LOG_PREFIX + " All settings reset to defaults.")
-            .formatted(Formatting.RED), true);
+            .formatted(Formatting.RED), false);
         return showMenu(source);
     }
 
+    /** Sends the full menu followed by the live status lines, all in one message. */
     private static int status(ServerCommandSource source) {
+        ModConfig config = ModConfig.get();
+        LagCompensator lag = CustomDayNightMod.lagCompensator();
+        MutableText message = Text.empty().append(MENU.renderComposite(config));
+        markSeen(source, config);
+
+        message.append("\n").append(Text.literal("  ⚙ Server: ").formatted(Formatting.GRAY)
+            .append(Text.literal(String.format("%.1f TPS", lag.getTps())).formatted(Formatting.WHITE))
+            .append(Text.literal(config.wallClockMode()
+                ? String.format("  (compensating ×%.2f)", lag.getAverageScale())
+                : "  (wall clock off)").formatted(Formatting.DARK_GRAY)));
+
+        SeasonalCalendar calendar = config.overworldSchedule().calendar();
+        if (calendar != null) {
+            long day = Math.floorDiv(source.getServer().getOverworld().getTimeOfDay(), TimeAdvanceEngine.TICKS_PER_DAY);
+            DayPlan plan = calendar.planFor(day);
+            message.append("\n").append(Text.literal("  ❀ Season: ").formatted(Formatting.GRAY)
+                .append(Text.literal(plan.season().displayName()).formatted(Formatting.GREEN, Formatting.BOLD))
+                .append(Text.literal("  (day " + (plan.dayOfYear() + 1) + " of " + calendar.yearLength() + ")")
+                    .formatted(Formatting.DARK_GRAY)));
+            message.append("\n").append(Text.literal("  Today: ").formatted(Formatting.GRAY)
+                .append(Text.literal("☀ " + formatDuration(plan.dayTicks())).formatted(Formatting.GOLD))
+                .append(Text.literal(" · ").formatted(Formatting.DARK_GRAY))
+                .append(Text.literal("☽ " + formatDuration(plan.nightTicks())).formatted(Formatting.BLUE)));
+        }
+        send(source, message);
+        return 1;
+    }
+
+    // ── Metrics ───────────────────────────────────────────────────────
+
+    private static int metrics(ServerCommandSource source) {
+        boolean on = TickMetrics.isEnabled();
+        MutableText message = Text.empty().append(Text.literal(CustomDayNightMod.LOG_PREFIX + " Tick metrics")
+            .formatted(Formatting.YELLOW)
+            .append(Text.literal(on ? " (sampling ON)" : " (sampling OFF)").formatted(on ? Formatting.GREEN : Formatting.RED)));
+        message.append("\n").append(Text.literal("  Handler cost: ").formatted(Formatting.GRAY)
+            .append(Text.literal("p50 " + formatNanos(TickMetrics.percentile(0.50))
+                + " · p99 " + formatNanos(TickMetrics.percentile(0.99))
+                + " · max " + formatNanos(TickMetrics.getMaxNanos())).formatted(Formatting.WHITE))
+            .append(Text.literal("  (" + TickMetrics.getSamples() + " samples)").formatted(Formatting.DARK_GRAY)));
+        message.append("\n").append(Text.literal("  Time advances: ").formatted(Formatting.GRAY)
+            .append(Text.literal(String.valueOf(TickMetrics.getTimeAdvances())).formatted(Formatting.WHITE))
+            .append(Text.literal("  Phase transitions: ").formatted(Formatting.GRAY))
+            .append(Text.literal(String.valueOf(TickMetrics.getPhaseTransitions())).formatted(Formatting.WHITE))
+            .append(Text.literal("  Config reloads: ").formatted(Formatting.GRAY))
+            .append(Text.literal(String.valueOf(TickMetrics.getConfigReloads())).formatted(Formatting.WHITE)));
+        message.append("\n").append(Text.literal("  Time sync packets: ").formatted(Formatting.GRAY)
+            .append(Text.literal(TimeSync.getPacketsSent() + " sent").formatted(Formatting.WHITE))
+            .append(Text.literal("  (" + TimeSync.getPacketsAvoided() + " avoided)").formatted(Formatting.DARK_GRAY)));
+        message.append("\n").append(Text.literal("  ")
+            .append(createButton(on ? "[Sampling Off]" : "[Sampling On]", "/customdaynight metrics " + (on ? "off" : "on"),
+                on ? "Stop sampling the tick handler" : "Start sampling the tick handler", Formatting.YELLOW))
+            .append(Text.literal("  "))
+            .append(createButton("[Reset]", "/customdaynight metrics reset", "Clear all metrics", Formatting.RED)));
+        send(source, message);
+        return 1;
+    }
+
+    private static int setMetricsSampling(ServerCommandSource source, boolean enabled) {
+        TickMetrics.setEnabled(enabled);
+        ChangeNotifier.announce(source, "turned tick metrics sampling " + (enabled ? "on" : "off"));
+        source.sendFeedback(() -> Text.literal(CustomDayNightMod.LOG_PREFIX + " Tick metrics sampling is now "
+            + (enabled ? "ON" : "OFF")).formatted(Formatting.YELLOW), false);
+        return metrics(source);
+    }
+
+    private static int resetMetrics(ServerCommandSource source) {
+        TickMetrics.reset();
+        ChangeNotifier.announce(source, "reset the tick metrics");
+        source.sendFeedback(() -> Text.literal(CustomDayNightMod.LOG_PREFIX + " Tick metrics reset.")
+            .formatted(Formatting.YELLOW), false);
+        return metrics(source);
+    }
+
+    // ── Tick trace ────────────────────────────────────────────────────
+
+    private static final DateTimeFormatter DUMP_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private static int traceStatus(ServerCommandSource source) {
+        TickTrace trace = CustomDayNightMod.tickTrace();
+        if (trace == null) {
+            send(source, Text.literal(CustomDayNightMod.LOG_PREFIX + " Tick trace is off (set trace_ticks in the config file)")
+                .formatted(Formatting.GRAY));
+            return 0;
+        }
+        send(source, Text.literal(CustomDayNightMod.LOG_PREFIX + " Tick trace").formatted(Formatting.YELLOW)
+            .append(Text.literal(" " + Math.min(trace.written(), trace.capacity()) + "/" + trace.capacity() + " records")
+                .formatted(Formatting.WHITE))
+            .append(Text.literal("  (" + trace.path() + ")").formatted(Formatting.DARK_GRAY))
+            .append(Text.literal("  "))
+            .append(createButton("[Dump]", "/customdaynight trace dump", "Copy the trace to a file for offline analysis",
+                Formatting.AQUA)));
+        return 1;
+    }
+
+    /**
+     * Copies the trace's header on the server thread and everything else on the I/O thread, so a
+     * large ring does not stall a tick; records overwritten while copying are left out of the dump.
+     * Decode it with {@link com.github.mozartsghost1212.customdaynightmod.core.TickTraceReader}.
+     */
+    private static int dumpTrace(ServerCommandSource source) {
+        TickTrace trace = CustomDayNightMod.tickTrace();
+        if (trace == null) {
+            return traceStatus(source);
+        }
+        TickTrace.Snapshot snapshot = trace.beginSnapshot();
+        Path target = CustomDayNightMod.TRACE_PATH.resolveSibling(
+            "customdaynightmod-trace-" + LocalDateTime.now().format(DUMP_TIMESTAMP) + ".bin");
+        ConfigPersistence.execute(() -> {
+            try {
+                Files.write(target, snapshot.copy());
+                long records = snapshot.records();
+                ModLog.info(ModLog.Category.IO, "event=trace_dumped path={} records={}", target, records);
+                source.getServer().execute(() -> {
+                    ChangeNotifier.announce(source, "dumped the tick trace");
+                    source.sendFeedback(() -> Text.literal(CustomDayNightMod.LOG_PREFIX
+                        + " Dumped " + records + " trace records to " + target).formatted(Formatting.GREEN), false);
+                });
+            } catch (IOException e) {
+                ModLog.warn(ModLog.Category.IO, e, "event=trace_dump_failed path={}", target);
+                source.getServer().execute(() -> source.sendFeedback(() -> Text.literal(CustomDayNightMod.LOG_PREFIX
+                    + " Failed to dump the trace: " + e.getMessage()).formatted(Formatting.RED), false));
+            }
+        });
+        return 1;
+    }
+
+    /** Formats nanoseconds as "850 ns" or "12.3 µs". */
+    static String formatNanos(long nanos) {
+        if (nanos < 1000) {
+            return nanos + " ns";
+        }
+        return String.format("%.1f µs", nanos / 1000.0);
+    }
+
+    /** Flips a boolean setting; feedback and notification work as in {@link #applyChange}. */
+    private static int applyToggle(ServerCommandSource source, String key, String label,
+                                   Consumer<ModConfig.Builder> toggle) {
+        ModConfig before = ModConfig.get();
+        ModConfig after = ModConfig.update(toggle);
+        String value = ConfigBatch.describe(after, key);
+        source.sendFeedback(() -> Text.literal(CustomDayNightMod.LOG_PREFIX + " " + label + " is now "
+            + (Boolean.parseBoolean(value) ? "ON" : "OFF")).formatted(Formatting.YELLOW), false);
+        ChangeNotifier.record(source, key, ConfigBatch.describe(before, key), value);
         return showMenu(source);
     }
 
+    private static int toggleCalendar(ServerCommandSource source) {
+        return applyToggle(source, "calendarEnabled", "Seasonal calendar", ModConfig.Builder::toggleCalendar);
+    }
+
+    private static int toggleCompactMenu(ServerCommandSource source) {
+        return applyToggle(source, "compactMenu", "Compact menu", ModConfig.Builder::toggleCompactMenu);
+    }
+
+    private static int toggleWallClock(ServerCommandSource source) {
+        return applyToggle(source, "wallClockMode", "Wall-clock mode", ModConfig.Builder::toggleWallClock);
+    }
+
     private static int togglePhaseLogging(ServerCommandSource source) {
-        ModConfig.logPhaseChanges = !ModConfig.logPhaseChanges;
-        source.sendFeedback(() -> Text.literal(CustomDayNightMod.LOG_PREFIX + " Phase logging is now "
-            + (ModConfig.logPhaseChanges ? "ON" : "OFF")).formatted(Formatting.YELLOW), true);
-        return showMenu(source);
+        return applyToggle(source, "logPhaseChanges", "Phase logging", ModConfig.Builder::togglePhaseLogging);
     }
 }
\ No newline at end of file
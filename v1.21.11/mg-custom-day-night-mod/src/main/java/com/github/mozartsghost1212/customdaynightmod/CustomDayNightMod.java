@@ -1,11 +1,33 @@
 package com.github.mozartsghost1212.customdaynightmod;
 
+import com.github.mozartsghost1212.customdaynightmod.core.EngineState;
+import com.github.mozartsghost1212.customdaynightmod.core.LagCompensator;
+import com.github.mozartsghost1212.customdaynightmod.core.TickTrace;
+import com.github.mozartsghost1212.customdaynightmod.core.TimeAdvanceEngine;
+import com.github.mozartsghost1212.customdaynightmod.jfr.ConfigIoEvent;
+import com.github.mozartsghost1212.customdaynightmod.jfr.PhaseTransitionEvent;
+import com.github.mozartsghost1212.customdaynightmod.jfr.TickAdvanceEvent;
+
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
 import net.fabricmc.api.ModInitializer;
 import net.fabricmc.fabric.api.command.v2.CommandRegistrationCallback;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerWorldEvents;
+import net.fabricmc.fabric.api.gamerule.v1.GameRuleEvents;
+import net.fabricmc.fabric.api.networking.v1.ServerPlayConnectionEvents;
 import net.fabricmc.loader.api.FabricLoader;
+import net.minecraft.registry.RegistryKey;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.world.ServerWorld;
+import net.minecraft.world.World;
+import net.minecraft.world.rule.GameRules;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * The {@code CustomDayNightMod} class implements a Minecraft Fabric mod that allows customization
@@ -15,18 +37,54 @@ import net.minecraft.server.world.ServerWorld;
  * <p>Features:
  * <ul>
  *   <li>Customizable day and night lengths via multipliers or absolute tick values.</li>
+ *   <li>Independent schedules per dimension.</li>
+ *   <li>Leaves time alone while the {@code advance_time} game rule (formerly {@code doDaylightCycle}) is off.</li>
+ *   <li>Optional wall-clock mode that keeps the cycle in step with real time while the server lags.</li>
+ *   <li>Optional idle mode that freezes time or jumps ahead while nobody is online.</li>
+ *   <li>Engine state saved with the world, so restarts do not change the timing.</li>
  *   <li>Logs phase changes (day/night) if enabled in the configuration.</li>
+ *   <li>Emits Java Flight Recorder events for phase transitions, config I/O and tick cost.</li>
+ *   <li>Invokes {@link com.github.mozartsghost1212.customdaynightmod.api.PhaseChangeCallback} once per phase transition, for other mods.</li>
+ *   <li>Exposes settings and engine statistics over JMX.</li>
+ *   <li>Optionally exports metrics to a Prometheus textfile.</li>
+ *   <li>Optionally records every tick in a memory-mapped trace ring for later analysis.</li>
  *   <li>Registers custom commands for in-game configuration.</li>
  * </ul>
  * 
- * <p>Configuration is loaded from {@code ModConfig}, and the mod operates only in the Overworld dimension.
+ * <p>Configuration is loaded from {@code ModConfig}. The mod drives the Overworld and any other dimension
+ * that has its own schedule in the configuration.
  * 
  * <p>Implements {@link net.fabricmc.api.ModInitializer} to hook into the mod initialization lifecycle.
  */
 public class CustomDayNightMod implements ModInitializer {
 
-    private enum Phase { DAY, NIGHT }
-    private Phase previousPhase = null;
+    private final Map<RegistryKey<World>, WorldCycle> cycles = new HashMap<>();
+    private WorldCycle[] activeCycles = new WorldCycle[0];
+    /** The Overworld's cycle, or null; volatile so JMX can read it off the server thread. */
+    private volatile WorldCycle overworldCycle = null;
+    /** Snapshot the cycles were built from; null forces a rebuild on the next tick. */
+    private ModConfig configured = null;
+    /** Measures real tick lengths; updated every tick so TPS is known even outside wall-clock mode. */
+    private static final LagCompensator LAG = new LagCompensator();
+    /** Checked before creating a {@link TickAdvanceEvent}, so no event is allocated while it is not recorded. */
+    private static final EventType TICK_ADVANCE_EVENT = EventType.getEventType(TickAdvanceEvent.class);
+
+    /** Ring file the tick trace is recorded in while {@code trace_ticks} is set. */
+    static final Path TRACE_PATH = Path.of("logs", "customdaynightmod-trace.ring");
+    /** Open tick trace, or null when tracing is off; only touched on the server thread. */
+    private static TickTrace trace = null;
+
+    /**
+     * Cached value of the {@code advance_time} game rule. Read once when the server starts and
+     * then only updated by the rule's change event (which also covers {@code /gamerule}), so the
+     * tick handler never looks the rule up.
+     */
+    private boolean daylightCycle = true;
+
+    /** Players counted from join and disconnect events; only touched on the server thread. */
+    private int onlinePlayers = 0;
+    /** Whether the server is empty and time is left alone; see {@link IdleMode}. */
+    private boolean idle = false;
 
     public static final String MOD_ID = "customdaynightmod";
     public static String LOG_PREFIX = "[CustomDayNightMod]";
@@ -38,65 +96,304 @@ public class CustomDayNightMod implements ModInitializer {
             .map(container -> container.getMetadata().getVersion().getFriendlyString())
             .orElse("unknown");
         LOG_PREFIX = "[CustomDayNightMod v" + version + "]";
-        System.out.println(LOG_PREFIX + " Initializing...");
+        ModLog.info(ModLog.Category.LIFECYCLE, "event=initializing version={}", version);
+
+        // Make the events visible to JFR configuration before their first use
+        FlightRecorder.register(PhaseTransitionEvent.class);
+        FlightRecorder.register(ConfigIoEvent.class);
+        FlightRecorder.register(TickAdvanceEvent.class);
         ModConfig.loadConfig();
 
         ServerTickEvents.START_SERVER_TICK.register(server -> onServerTick(server));
+        ServerTickEvents.END_SERVER_TICK.register(server -> ChangeNotifier.tick(server.getTicks()));
+        ServerTickEvents.END_SERVER_TICK.register(server ->
+                PrometheusExporter.tick(server.getTicks(), ModConfig.get(), activeCycles));
+        ServerWorldEvents.LOAD.register((server, world) -> configured = null);
+        ServerWorldEvents.UNLOAD.register((server, world) -> configured = null);
+        ServerLifecycleEvents.SERVER_STARTED.register(server -> {
+            LAG.reset();
+            onlinePlayers = 0;
+            daylightCycle = readDaylightCycle(server);
+            ModConfig config = ModConfig.get();
+            rebuildCycles(server, config);
+            enterIdle(config);
+            ConfigWatcher.update(server, config);
+            CycleControl.register(server, () -> overworldCycle);
+        });
+        GameRuleEvents.changeCallback(GameRules.ADVANCE_TIME).register((value, server) -> onDaylightCycleChanged(value));
+        ServerLifecycleEvents.BEFORE_SAVE.register((server, flush, force) -> saveCycleState(server));
+        ServerPlayConnectionEvents.JOIN.register((handler, sender, server) -> onPlayerJoin());
+        ServerPlayConnectionEvents.DISCONNECT.register((handler, server) -> {
+            CustomDayNightCommand.forgetViewer(handler.getPlayer().getUuid());
+            onPlayerDisconnect();
+        });
+        ServerLifecycleEvents.SERVER_STOPPING.register(server -> {
+            CycleControl.unregister();
+            closeTrace();
+            ConfigWatcher.stop();
+            ChangeNotifier.flush();
+            ConfigPersistence.flush();
+            ModLog.flush();
+        });
 
         CommandRegistrationCallback.EVENT.register((dispatcher, registryAccess, environment) -> {
             CustomDayNightCommand.register(dispatcher);
         });
 
-        System.out.println(LOG_PREFIX + " Mod successfully registered!");
+        ModLog.info(ModLog.Category.LIFECYCLE, "event=registered");
     }
 
     /**
-     * Handles the server tick event to control the day and night cycle in the Overworld.
+     * Handles the server tick event to control the day and night cycle of every world that has
+     * a schedule (the Overworld always does; other dimensions only when configured).
      * <p>
-     * This method adjusts the world's time progression based on custom configuration settings,
-     * allowing for custom day and night lengths or multipliers. It also logs phase changes
-     * (from day to night or vice versa) if enabled in the configuration.
+     * The configuration snapshot is loaded once per tick. When it differs from the last one seen,
+     * or when a world has been loaded or unloaded, the list of driven worlds is rebuilt; otherwise
+     * the handler only walks a cached array of {@link WorldCycle}s, so dimensions without a schedule
+     * cost nothing. The actual advance is delegated to each world's headless
+     * {@link com.github.mozartsghost1212.customdaynightmod.core.CycleDriver},
+     * which carries fractional ticks between server ticks.
+     * </p>
+     * <p>
+     * A changed snapshot also re-applies the idle mode and starts or stops the config file
+     * watcher, so switching either takes effect at once. While the daylight cycle game rule is off
+     * the handler then returns without touching any world; while the server is idle it only holds
+     * frozen worlds in place (see {@link #holdFrozenWorlds}).
      * </p>
      *
      * @param server The {@link MinecraftServer} instance for which the tick is being processed.
      */
     private void onServerTick(MinecraftServer server) {
-        for (ServerWorld world : server.getWorlds()) {
-            if (world.getRegistryKey() == ServerWorld.OVERWORLD) {
-                long time = world.getTimeOfDay() % 24000L;
-                float multiplier;
-                Phase currentPhase = (time < 12000L) ? Phase.DAY : Phase.NIGHT;
-
-                if (previousPhase != currentPhase) {
-                    if (ModConfig.logPhaseChanges) {
-                        if (currentPhase == Phase.DAY) {
-                            if (ModConfig.absoluteDayLength > 0) {
-                                System.out.println(LOG_PREFIX + " Entering DAY phase... (absolute length: " + ModConfig.absoluteDayLength + " ticks)");
-                            } else {
-                                System.out.println(LOG_PREFIX + " Entering DAY phase... (multiplier: " + ModConfig.dayMultiplier + ")");
-                            }
-                        } else {
-                            if (ModConfig.absoluteNightLength > 0) {
-                                System.out.println(LOG_PREFIX + " Entering NIGHT phase... (absolute length: " + ModConfig.absoluteNightLength + " ticks)");
-                            } else {
-                                System.out.println(LOG_PREFIX + " Entering NIGHT phase... (multiplier: " + ModConfig.nightMultiplier + ")");
-                            }
-                        }
-                    }
-                    previousPhase = currentPhase;
-                }
+        ModConfig config = ModConfig.get();
+        if (config != configured) {
+            rebuildCycles(server, config);
+            applyIdleMode(config);
+            ConfigWatcher.update(server, config);
+        }
+        if (!daylightCycle) {
+            return;
+        }
+        if (idle) {
+            if (config.idleMode() == IdleMode.FREEZE) {
+                holdFrozenWorlds();
+            }
+            return;
+        }
+        boolean sampling = TickMetrics.isEnabled();
+        long start = sampling ? System.nanoTime() : 0L;
+        TickAdvanceEvent event = null;
+        if (TICK_ADVANCE_EVENT.isEnabled()) {
+            event = new TickAdvanceEvent();
+            event.begin();
+        }
 
-                if (ModConfig.absoluteDayLength > 0 && time < 12000L) {
-                    multiplier = (24000f / 2) / ModConfig.absoluteDayLength;
-                } else if (ModConfig.absoluteNightLength > 0 && time >= 12000L) {
-                    multiplier = (24000f / 2) / ModConfig.absoluteNightLength;
-                } else {
-                    multiplier = (time < 12000L) ? ModConfig.dayMultiplier : ModConfig.nightMultiplier;
-                }
+        long tickScale = LAG.update(System.nanoTime(), config.maxCatchUpTicks());
+        if (!config.wallClockMode()) {
+            tickScale = LagCompensator.SCALE_ONE;
+        }
+
+        WorldCycle[] cycles = activeCycles;
+        int serverTick = server.getTicks();
+        for (int i = 0; i < cycles.length; i++) {
+            cycles[i].tick(config, serverTick, tickScale, trace);
+        }
+
+        TickMetrics.recordAdvances(cycles.length);
+        if (sampling) {
+            TickMetrics.recordTick(System.nanoTime() - start);
+        }
+        if (event != null && event.shouldCommit()) {
+            event.worlds = cycles.length;
+            event.commit();
+        }
+    }
+
+    /**
+     * Copies each driven world's engine state into the Overworld's {@link CycleState} right
+     * before the server saves, so the game writes it along with the world.
+     */
+    private void saveCycleState(MinecraftServer server) {
+        CycleState state = CycleState.get(server);
+        for (WorldCycle cycle : activeCycles) {
+            EngineState snapshot = cycle.snapshot();
+            if (snapshot != null) {
+                state.put(cycle.getDimensionId(), snapshot);
+            }
+        }
+    }
+
+    // ── Game rules ──
 
-                long newTime = world.getTimeOfDay() + (long) multiplier;
-                world.setTimeOfDay(newTime);
+    private static boolean readDaylightCycle(MinecraftServer server) {
+        return server.getOverworld().getGameRules().getValue(GameRules.ADVANCE_TIME);
+    }
+
+    /**
+     * Stops or resumes driving time when the daylight cycle game rule changes. A frozen world is
+     * left exactly where the rule stopped it; on resume each engine continues from the time it
+     * finds, so a {@code /time set} made in between is picked up like any other external change.
+     */
+    private void onDaylightCycleChanged(boolean value) {
+        if (value == daylightCycle) {
+            return;
+        }
+        daylightCycle = value;
+        if (value) {
+            LAG.reset(); // the paused period is not lag to catch up on
+        }
+        ModLog.info(ModLog.Category.LIFECYCLE, "event={}", value ? "daylight_cycle_resumed" : "daylight_cycle_paused");
+    }
+
+    // ── Idle handling ──
+
+    private void onPlayerJoin() {
+        onlinePlayers++;
+        if (idle) {
+            leaveIdle(ModConfig.get());
+        }
+    }
+
+    private void onPlayerDisconnect() {
+        onlinePlayers = Math.max(0, onlinePlayers - 1);
+        if (onlinePlayers == 0 && !idle) {
+            enterIdle(ModConfig.get());
+        }
+    }
+
+    /**
+     * Brings the idle state in line with a new configuration snapshot, so a changed mode applies
+     * at once: an empty server becomes idle under a mode other than {@link IdleMode#KEEP} and
+     * stops being idle under KEEP.
+     */
+    private void applyIdleMode(ModConfig config) {
+        if (onlinePlayers > 0) {
+            return;
+        }
+        if (!idle) {
+            enterIdle(config);
+        } else if (config.idleMode() == IdleMode.KEEP) {
+            leaveIdle(config);
+        }
+    }
+
+    /**
+     * Stops driving time once the server is empty, unless the idle mode keeps the rate. The tick
+     * handler then only holds frozen worlds in place; vanilla's clock keeps running in
+     * {@link IdleMode#JUMP} mode until the next player joins.
+     */
+    private void enterIdle(ModConfig config) {
+        if (config.idleMode() == IdleMode.KEEP) {
+            return;
+        }
+        idle = true;
+        ModLog.info(ModLog.Category.LIFECYCLE, "event=idle_start mode={} worlds={}",
+                config.idleMode().configName(), activeCycles.length);
+    }
+
+    /**
+     * Keeps frozen worlds where they are. Vanilla's daylight cycle still adds one tick after this
+     * handler, so each world is set one tick back and ends every tick at the time it started it
+     * with; the clock never moves, and nothing has to be restored (or rewound) when a player
+     * joins. A {@code /time set} from the console simply becomes the new time held.
+     */
+    private void holdFrozenWorlds() {
+        for (WorldCycle cycle : activeCycles) {
+            ServerWorld world = cycle.getWorld();
+            world.setTimeOfDay(world.getTimeOfDay() - 1);
+        }
+    }
+
+    /**
+     * Resumes driving time for the first player to join. A frozen world is already at the time
+     * it had when the last player left; in {@link IdleMode#JUMP} mode each world moves forward to
+     * the next configured time of day. The engines resynchronise to the new time on their next
+     * tick. Nothing is moved while the daylight cycle game rule is off.
+     */
+    private void leaveIdle(ModConfig config) {
+        idle = false;
+        LAG.reset(); // the idle period is not lag to catch up on
+        if (daylightCycle && config.idleMode() == IdleMode.JUMP) {
+            for (WorldCycle cycle : activeCycles) {
+                ServerWorld world = cycle.getWorld();
+                long now = world.getTimeOfDay();
+                world.setTimeOfDay(now + Math.floorMod(config.idleJumpTime() - now, TimeAdvanceEngine.TICKS_PER_DAY));
+            }
+        }
+        ModLog.info(ModLog.Category.LIFECYCLE, "event=idle_end mode={}", config.idleMode().configName());
+    }
+
+    // ── Tick trace ──
+
+    /** The open tick trace, or null when tracing is off. Server thread only. */
+    static TickTrace tickTrace() {
+        return trace;
+    }
+
+    /** Opens, resizes or closes the trace ring to match the configuration. */
+    private static void configureTrace(ModConfig config) {
+        if (trace != null && trace.capacity() == config.traceTicks()) {
+            return;
+        }
+        closeTrace();
+        if (config.traceTicks() == 0) {
+            return;
+        }
+        try {
+            trace = TickTrace.open(TRACE_PATH, config.traceTicks());
+            ModLog.info(ModLog.Category.IO, "event=trace_opened path={} capacity={} written={}",
+                    TRACE_PATH, trace.capacity(), trace.written());
+        } catch (IOException e) {
+            ModLog.warn(ModLog.Category.IO, e, "event=trace_open_failed path={}", TRACE_PATH);
+        }
+    }
+
+    private static void closeTrace() {
+        if (trace == null) {
+            return;
+        }
+        try {
+            trace.close();
+        } catch (IOException e) {
+            ModLog.warn(ModLog.Category.IO, e, "event=trace_close_failed path={}", TRACE_PATH);
+        }
+        trace = null;
+    }
+
+    /** The server's tick-length tracker, for status display. */
+    static LagCompensator lagCompensator() {
+        return LAG;
+    }
+
+    /**
+     * Resolves the schedule for each loaded world and caches the worlds that have one.
+     * Existing {@link WorldCycle}s are reused so their engine state survives a config change; new
+     * ones continue from the state saved by the previous server run, if any.
+     */
+    private void rebuildCycles(MinecraftServer server, ModConfig config) {
+        Map<RegistryKey<World>, WorldCycle> next = new HashMap<>();
+        for (ServerWorld world : server.getWorlds()) {
+            RegistryKey<World> key = world.getRegistryKey();
+            String dimensionId = key.getValue().toString();
+            CycleSchedule schedule = config.scheduleFor(dimensionId);
+            if (schedule == null) {
+                continue;
+            }
+            WorldCycle cycle = cycles.get(key);
+            if (cycle == null || cycle.getWorld() != world) {
+                cycle = new WorldCycle(world, dimensionId);
+                EngineState saved = CycleState.get(server).get(dimensionId);
+                if (saved != null) {
+                    cycle.restore(saved);
+                }
             }
+            cycle.configure(schedule);
+            next.put(key, cycle);
         }
+        cycles.clear();
+        cycles.putAll(next);
+        activeCycles = next.values().toArray(new WorldCycle[0]);
+        overworldCycle = next.get(World.OVERWORLD);
+        configured = config;
+        configureTrace(config);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,362 @@
+package com.github.mozartsghost1212.customdaynightmod;
+
+import com.github.mozartsghost1212.customdaynightmod.core.Phase;
+
+import net.minecraft.server.MinecraftServer;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * JMX view of the mod, for tuning the cycle and watching the engine from JConsole, VisualVM or
+ * any other JMX client while the server runs.
+ * <p>
+ * JMX calls arrive on RMI threads, but the tick handler, {@link TickMetrics} and the
+ * {@link WorldCycle}s are only changed on the server thread. Every setter and operation is
+ * therefore submitted to the server's task queue and awaited for at most {@link #TIMEOUT_MS}, so
+ * the caller still sees validation errors. Setters go through {@link ConfigBatch}, so they are
+ * clamped exactly like {@code /customdaynight set}, and every change is written to the
+ * {@link AuditLog} with the actor {@code JMX}. Reads never wait for the server: a configuration
+ * attribute loads the published {@link ModConfig} snapshot, and a statistic reads the values
+ * the last tick published, so a dashboard keeps working while the server lags.
+ * </p>
+ */
+final class CycleControl implements CycleControlMBean {
+
+    static final String OBJECT_NAME = CustomDayNightMod.MOD_ID + ":type=CycleControl";
+    /** How long a JMX call waits for the server thread before giving up. */
+    private static final long TIMEOUT_MS = 5000;
+    private static final String ACTOR = "JMX";
+
+    private final MinecraftServer server;
+    private final Supplier<WorldCycle> overworld;
+
+    private CycleControl(MinecraftServer server, Supplier<WorldCycle> overworld) {
+        this.server = server;
+        this.overworld = overworld;
+    }
+
+    /**
+     * Registers the MBean for a starting server, replacing one left over from a previous run
+     * in the same JVM (integrated server).
+     *
+     * @param overworld looks up the Overworld's cycle; called on RMI threads
+     */
+    static void register(MinecraftServer server, Supplier<WorldCycle> overworld) {
+        try {
+            MBeanServer mbeans = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (mbeans.isRegistered(name)) {
+                mbeans.unregisterMBean(name);
+            }
+            mbeans.registerMBean(new CycleControl(server, overworld), name);
+            ModLog.info(ModLog.Category.LIFECYCLE, "event=jmx_registered name={}", OBJECT_NAME);
+        } catch (JMException e) {
+            ModLog.warn(ModLog.Category.LIFECYCLE, e, "event=jmx_register_failed name={}", OBJECT_NAME);
+        }
+    }
+
+    /** Removes the MBean when the server stops. */
+    static void unregister() {
+        try {
+            MBeanServer mbeans = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (mbeans.isRegistered(name)) {
+                mbeans.unregisterMBean(name);
+            }
+        } catch (JMException e) {
+            ModLog.warn(ModLog.Category.LIFECYCLE, e, "event=jmx_unregister_failed name={}", OBJECT_NAME);
+        }
+    }
+
+    // ── Configuration ──
+
+    @Override
+    public float getDayMultiplier() {
+        return ModConfig.get().dayMultiplier();
+    }
+
+    @Override
+    public void setDayMultiplier(float value) {
+        set("dayMultiplier", String.valueOf(value));
+    }
+
+    @Override
+    public float getNightMultiplier() {
+        return ModConfig.get().nightMultiplier();
+    }
+
+    @Override
+    public void setNightMultiplier(float value) {
+        set("nightMultiplier", String.valueOf(value));
+    }
+
+    @Override
+    public int getAbsoluteDayLength() {
+        return ModConfig.get().absoluteDayLength();
+    }
+
+    @Override
+    public void setAbsoluteDayLength(int value) {
+        set("absoluteDayLength", String.valueOf(value));
+    }
+
+    @Override
+    public int getAbsoluteNightLength() {
+        return ModConfig.get().absoluteNightLength();
+    }
+
+    @Override
+    public void setAbsoluteNightLength(int value) {
+        set("absoluteNightLength", String.valueOf(value));
+    }
+
+    @Override
+    public boolean isLogPhaseChanges() {
+        return ModConfig.get().logPhaseChanges();
+    }
+
+    @Override
+    public void setLogPhaseChanges(boolean value) {
+        set("logPhaseChanges", String.valueOf(value));
+    }
+
+    @Override
+    public int getTimeSyncThreshold() {
+        return ModConfig.get().timeSyncThreshold();
+    }
+
+    @Override
+    public void setTimeSyncThreshold(int value) {
+        set("timeSyncThreshold", String.valueOf(value));
+    }
+
+    @Override
+    public String getSpeedCurve() {
+        return ConfigBatch.describe(ModConfig.get(), "speedCurve");
+    }
+
+    @Override
+    public void setSpeedCurve(String value) {
+        set("speedCurve", value == null || value.isBlank() ? "none" : value.trim());
+    }
+
+    @Override
+    public boolean isCalendarEnabled() {
+        return ModConfig.get().calendarEnabled();
+    }
+
+    @Override
+    public void setCalendarEnabled(boolean value) {
+        set("calendarEnabled", String.valueOf(value));
+    }
+
+    @Override
+    public int getCalendarYearLength() {
+        return ModConfig.get().calendarYearLength();
+    }
+
+    @Override
+    public void setCalendarYearLength(int value) {
+        set("calendarYearLength", String.valueOf(value));
+    }
+
+    @Override
+    public int getCalendarShortestPhase() {
+        return ModConfig.get().calendarShortestPhase();
+    }
+
+    @Override
+    public void setCalendarShortestPhase(int value) {
+        set("calendarShortestPhase", String.valueOf(value));
+    }
+
+    @Override
+    public int getCalendarLongestPhase() {
+        return ModConfig.get().calendarLongestPhase();
+    }
+
+    @Override
+    public void setCalendarLongestPhase(int value) {
+        set("calendarLongestPhase", String.valueOf(value));
+    }
+
+    @Override
+    public boolean isWallClockMode() {
+        return ModConfig.get().wallClockMode();
+    }
+
+    @Override
+    public void setWallClockMode(boolean value) {
+        set("wallClockMode", String.valueOf(value));
+    }
+
+    @Override
+    public int getMaxCatchUpTicks() {
+        return ModConfig.get().maxCatchUpTicks();
+    }
+
+    @Override
+    public void setMaxCatchUpTicks(int value) {
+        set("maxCatchUpTicks", String.valueOf(value));
+    }
+
+    @Override
+    public String getIdleMode() {
+        return ModConfig.get().idleMode().configName();
+    }
+
+    @Override
+    public void setIdleMode(String value) {
+        set("idleMode", String.valueOf(value));
+    }
+
+    @Override
+    public int getIdleJumpTime() {
+        return ModConfig.get().idleJumpTime();
+    }
+
+    @Override
+    public void setIdleJumpTime(int value) {
+        set("idleJumpTime", String.valueOf(value));
+    }
+
+    @Override
+    public boolean isCompactMenu() {
+        return ModConfig.get().compactMenu();
+    }
+
+    @Override
+    public void setCompactMenu(boolean value) {
+        set("compactMenu", String.valueOf(value));
+    }
+
+    @Override
+    public int getConfigVersion() {
+        return ModConfig.get().version();
+    }
+
+    /** Validates, clamps and applies one setting on the server thread. */
+    private void set(String key, String value) {
+        await(server.submit(() -> {
+            ConfigBatch batch = ConfigBatch.parse(key + "=" + value, ModConfig.get());
+            ModConfig before = ModConfig.get();
+            ModConfig after = batch.apply();
+            String from = ConfigBatch.describe(before, key);
+            String to = ConfigBatch.describe(after, key);
+            AuditLog.change(ACTOR, key, from, to);
+            ModLog.info(ModLog.Category.CONFIG, "event=config_changed source=jmx key={} from={} to={}", key, from, to);
+            return null;
+        }));
+    }
+
+    // ── Operations ──
+
+    @Override
+    public void reload() {
+        await(ConfigPersistence.loadAsync().thenAcceptAsync(config -> {
+            ModConfig.publish(config);
+            TickMetrics.recordConfigReload();
+            AuditLog.action(ACTOR, "reload");
+            ModLog.info(ModLog.Category.CONFIG, "event=config_reloaded source=jmx version={}", config.version());
+        }, server));
+    }
+
+    @Override
+    public void save() {
+        await(ConfigPersistence.requestSave().thenRunAsync(() -> AuditLog.action(ACTOR, "save"), server));
+    }
+
+    @Override
+    public void defaults() {
+        await(server.submit(() -> {
+            ModConfig.resetDefaults();
+            AuditLog.action(ACTOR, "reset");
+            ModLog.info(ModLog.Category.CONFIG, "event=config_reset source=jmx");
+        }));
+    }
+
+    // ── Statistics ──
+
+    @Override
+    public String getPhase() {
+        WorldCycle cycle = overworld.get();
+        Phase phase = cycle == null ? null : cycle.getPhase();
+        return phase == null ? "none" : phase.name();
+    }
+
+    @Override
+    public double getEffectiveRate() {
+        WorldCycle cycle = overworld.get();
+        return cycle == null ? 0.0 : cycle.getEffectiveRate();
+    }
+
+    @Override
+    public int getTicksInPhase() {
+        WorldCycle cycle = overworld.get();
+        return cycle == null ? 0 : cycle.getTicksInPhase(server.getTicks());
+    }
+
+    @Override
+    public boolean isMetricsEnabled() {
+        return TickMetrics.isEnabled();
+    }
+
+    @Override
+    public void setMetricsEnabled(boolean value) {
+        await(server.submit(() -> TickMetrics.setEnabled(value)));
+    }
+
+    @Override
+    public long getHandlerSamples() {
+        return TickMetrics.getSamples();
+    }
+
+    @Override
+    public long getHandlerCostP50Nanos() {
+        return TickMetrics.percentile(0.50);
+    }
+
+    @Override
+    public long getHandlerCostP99Nanos() {
+        return TickMetrics.percentile(0.99);
+    }
+
+    @Override
+    public long getHandlerCostMaxNanos() {
+        return TickMetrics.getMaxNanos();
+    }
+
+    @Override
+    public long getPhaseTransitions() {
+        return TickMetrics.getPhaseTransitions();
+    }
+
+    /**
+     * Waits for a task handed to another thread. Validation errors are rethrown as they are, so
+     * the JMX client shows their message.
+     */
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause().toString());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("The server did not respond within " + TIMEOUT_MS + " ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the server");
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.github.mozartsghost1212.customdaynightmod;
+
+/**
+ * Management interface of {@link CycleControl}, registered as
+ * {@code customdaynightmod:type=CycleControl}.
+ * <p>
+ * The configuration attributes mirror the keys of {@code /customdaynight set} and are clamped the
+ * same way. The statistics describe the Overworld's cycle and the tick handler.
+ * </p>
+ */
+public interface CycleControlMBean {
+
+    // ── Configuration ──
+
+    float getDayMultiplier();
+
+    void setDayMultiplier(float value);
+
+    float getNightMultiplier();
+
+    void setNightMultiplier(float value);
+
+    int getAbsoluteDayLength();
+
+    void setAbsoluteDayLength(int value);
+
+    int getAbsoluteNightLength();
+
+    void setAbsoluteNightLength(int value);
+
+    boolean isLogPhaseChanges();
+
+    void setLogPhaseChanges(boolean value);
+
+    int getTimeSyncThreshold();
+
+    void setTimeSyncThreshold(int value);
+
+    /** Name of the speed curve in use, or {@code none}. */
+    String getSpeedCurve();
+
+    void setSpeedCurve(String value);
+
+    boolean isCalendarEnabled();
+
+    void setCalendarEnabled(boolean value);
+
+    int getCalendarYearLength();
+
+    void setCalendarYearLength(int value);
+
+    int getCalendarShortestPhase();
+
+    void setCalendarShortestPhase(int value);
+
+    int getCalendarLongestPhase();
+
+    void setCalendarLongestPhase(int value);
+
+    boolean isWallClockMode();
+
+    void setWallClockMode(boolean value);
+
+    int getMaxCatchUpTicks();
+
+    void setMaxCatchUpTicks(int value);
+
+    /** {@code keep}, {@code freeze} or {@code jump}. */
+    String getIdleMode();
+
+    void setIdleMode(String value);
+
+    int getIdleJumpTime();
+
+    void setIdleJumpTime(int value);
+
+    boolean isCompactMenu();
+
+    void setCompactMenu(boolean value);
+
+    /** Version of the active configuration snapshot; increases with every change. */
+    int getConfigVersion();
+
+    // ── Operations ──
+
+    /** Reloads the configuration file, like {@code /customdaynight reload}. */
+    void reload();
+
+    /** Writes the active configuration to the file, like {@code /customdaynight save}. */
+    void save();
+
+    /** Resets every setting to its default, like {@code /customdaynight defaults}. */
+    void defaults();
+
+    // ── Statistics ──
+
+    /** {@code DAY} or {@code NIGHT}, or {@code none} before the first tick. */
+    String getPhase();
+
+    /** Game ticks per server tick at the current time of day. */
+    double getEffectiveRate();
+
+    /** Server ticks since the current phase began. */
+    int getTicksInPhase();
+
+    /** Whether the tick handler's cost is sampled; see {@code /customdaynight metrics}. */
+    boolean isMetricsEnabled();
+
+    void setMetricsEnabled(boolean value);
+
+    long getHandlerSamples();
+
+    long getHandlerCostP50Nanos();
+
+    long getHandlerCostP99Nanos();
+
+    long getHandlerCostMaxNanos();
+
+    long getPhaseTransitions();
+}
@@ -0,0 +1,117 @@
+package com.github.mozartsghost1212.customdaynightmod;
+
+import com.github.mozartsghost1212.customdaynightmod.core.SeasonalCalendar;
+import com.github.mozartsghost1212.customdaynightmod.core.SpeedCurve;
+import com.github.mozartsghost1212.customdaynightmod.core.TimeAdvanceEngine;
+
+/**
+ * Immutable day/night schedule for one dimension.
+ * <p>
+ * Holds the two multipliers and two absolute lengths, clamped to the bounds in
+ * {@link ModConfig}, together with the values derived from them: the fixed-point step
+ * per phase used by {@link TimeAdvanceEngine} and the effective real-time length of each
+ * phase in server ticks. The derived values are computed once in the constructor.
+ * </p>
+ * <p>
+ * A schedule may follow a {@link SpeedCurve} instead. The curve then sets the rate at every time
+ * of day and the effective lengths come from the curve; the multipliers and absolute lengths are
+ * kept so they apply again once the curve is deselected.
+ * </p>
+ * <p>
+ * Without a curve, a schedule may follow a {@link SeasonalCalendar}, which derives each day's
+ * lengths from its position in the year. The effective lengths are then the yearly average.
+ * </p>
+ */
+public final class CycleSchedule {
+
+    public static final CycleSchedule VANILLA = new CycleSchedule(1.0f, 1.0f, 0, 0);
+
+    private final float dayMultiplier;
+    private final float nightMultiplier;
+    private final int absoluteDayLength;
+    private final int absoluteNightLength;
+    private final SpeedCurve curve;
+    private final SeasonalCalendar calendar;
+
+    private final long dayStep;
+    private final long nightStep;
+    private final int effectiveDayTicks;
+    private final int effectiveNightTicks;
+
+    public CycleSchedule(float dayMultiplier, float nightMultiplier, int absoluteDayLength, int absoluteNightLength) {
+        this(dayMultiplier, nightMultiplier, absoluteDayLength, absoluteNightLength, null, null);
+    }
+
+    /**
+     * @param curve    speed curve to follow, or null to use the multipliers and absolute lengths
+     * @param calendar seasonal calendar to follow when there is no curve, or null
+     */
+    public CycleSchedule(float dayMultiplier, float nightMultiplier, int absoluteDayLength, int absoluteNightLength,
+                         SpeedCurve curve, SeasonalCalendar calendar) {
+        this.curve = curve;
+        this.calendar = curve == null ? calendar : null;
+        this.dayMultiplier = ModConfig.clampMultiplier(dayMultiplier);
+        this.nightMultiplier = ModConfig.clampMultiplier(nightMultiplier);
+        this.absoluteDayLength = ModConfig.clampAbsoluteLength(absoluteDayLength);
+        this.absoluteNightLength = ModConfig.clampAbsoluteLength(absoluteNightLength);
+
+        this.dayStep = TimeAdvanceEngine.stepFor(this.absoluteDayLength, this.dayMultiplier);
+        this.nightStep = TimeAdvanceEngine.stepFor(this.absoluteNightLength, this.nightMultiplier);
+        if (curve != null) {
+            this.effectiveDayTicks = curve.effectiveDayTicks();
+            this.effectiveNightTicks = curve.effectiveNightTicks();
+        } else if (this.calendar != null) {
+            this.effectiveDayTicks = this.calendar.cycleTicks() / 2;
+            this.effectiveNightTicks = this.calendar.cycleTicks() - this.effectiveDayTicks;
+        } else {
+            this.effectiveDayTicks = TimeAdvanceEngine.effectiveTicks(this.absoluteDayLength, this.dayMultiplier);
+            this.effectiveNightTicks = TimeAdvanceEngine.effectiveTicks(this.absoluteNightLength, this.nightMultiplier);
+        }
+    }
+
+    public float dayMultiplier() {
+        return dayMultiplier;
+    }
+
+    public float nightMultiplier() {
+        return nightMultiplier;
+    }
+
+    public int absoluteDayLength() {
+        return absoluteDayLength;
+    }
+
+    public int absoluteNightLength() {
+        return absoluteNightLength;
+    }
+
+    /** The speed curve this schedule follows, or null. */
+    public SpeedCurve curve() {
+        return curve;
+    }
+
+    /** The seasonal calendar this schedule follows, or null (always null with a curve). */
+    public SeasonalCalendar calendar() {
+        return calendar;
+    }
+
+    /** Fixed-point game ticks per server tick during the day. */
+    public long dayStep() {
+        return dayStep;
+    }
+
+    /** Fixed-point game ticks per server tick during the night. */
+    public long nightStep() {
+        return nightStep;
+    }
+
+    /** Real-time length of the day phase in server ticks. */
+    public int effectiveDayTicks() {
+        return effectiveDayTicks;
+    }
+
+    /** Real-time length of the night phase in server ticks. */
+    public int effectiveNightTicks() {
+        return effectiveNightTicks;
+    }
+}
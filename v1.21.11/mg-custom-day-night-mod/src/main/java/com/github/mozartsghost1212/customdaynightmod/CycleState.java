@@ -0,0 +1,70 @@
+package com.github.mozartsghost1212.customdaynightmod;
+
+import com.github.mozartsghost1212.customdaynightmod.core.EngineState;
+import com.github.mozartsghost1212.customdaynightmod.core.Phase;
+import com.mojang.serialization.Codec;
+import com.mojang.serialization.codecs.RecordCodecBuilder;
+
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.world.PersistentState;
+import net.minecraft.world.PersistentStateType;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Engine state of every driven world, stored with the Overworld's save data.
+ * <p>
+ * {@link CustomDayNightMod} copies each world's {@link EngineState} in here just before the
+ * server saves, and the game writes it out together with the rest of the world; the mod never
+ * does this I/O itself. The state is only marked dirty when an entry actually changed, so an
+ * unchanged cycle (for example with the daylight cycle off) causes no write. On the next start
+ * the entries are handed back to the new {@link WorldCycle}s, so a restart neither logs a
+ * spurious phase change nor loses the fractional tick carried between ticks.
+ * </p>
+ */
+final class CycleState extends PersistentState {
+
+    private static final Codec<Phase> PHASE_CODEC = Codec.STRING.xmap(Phase::valueOf, Phase::name);
+
+    private static final Codec<EngineState> ENTRY_CODEC = RecordCodecBuilder.create(instance -> instance.group(
+            PHASE_CODEC.fieldOf("phase").forGetter(EngineState::phase),
+            Codec.LONG.fieldOf("last_written").forGetter(EngineState::lastWritten),
+            Codec.LONG.fieldOf("fraction").forGetter(EngineState::fraction)
+    ).apply(instance, EngineState::new));
+
+    private static final Codec<CycleState> CODEC = Codec.unboundedMap(Codec.STRING, ENTRY_CODEC)
+            .fieldOf("worlds").codec()
+            .xmap(CycleState::new, state -> state.worlds);
+
+    static final PersistentStateType<CycleState> TYPE =
+            new PersistentStateType<>(CustomDayNightMod.MOD_ID, CycleState::new, CODEC, null);
+
+    /** Saved state keyed by dimension id. */
+    private final Map<String, EngineState> worlds;
+
+    private CycleState() {
+        this(Map.of());
+    }
+
+    private CycleState(Map<String, EngineState> worlds) {
+        this.worlds = new HashMap<>(worlds);
+    }
+
+    /** Returns the state attached to the server's Overworld, creating it if needed. */
+    static CycleState get(MinecraftServer server) {
+        return server.getOverworld().getPersistentStateManager().getOrCreate(TYPE);
+    }
+
+    /** Saved state for a dimension, or null if none was saved. */
+    EngineState get(String dimensionId) {
+        return worlds.get(dimensionId);
+    }
+
+    /** Records a dimension's state and marks the data dirty if it differs from what is stored. */
+    void put(String dimensionId, EngineState state) {
+        if (!state.equals(worlds.put(dimensionId, state))) {
+            markDirty();
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.github.mozartsghost1212.customdaynightmod;
+
+import java.util.Locale;
+
+/**
+ * What the mod does with time while no players are online.
+ */
+public enum IdleMode {
+    /** Keep advancing time at the configured rate. */
+    KEEP,
+    /** Hold every driven world at the time of day it had when the last player left. */
+    FREEZE,
+    /** Stop driving time; when a player joins, jump forward to the configured time of day. */
+    JUMP;
+
+    /** Name used in the config file and in commands, e.g. "freeze". */
+    public String configName() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Parses a config or command value, ignoring case.
+     *
+     * @throws IllegalArgumentException if the value names no mode
+     */
+    public static IdleMode byName(String name) {
+        return valueOf(name.trim().toUpperCase(Locale.ROOT));
+    }
+}
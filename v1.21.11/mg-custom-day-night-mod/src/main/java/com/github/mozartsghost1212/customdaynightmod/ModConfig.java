@@ -1,10 +1,24 @@
 package com.github.mozartsghost1212.customdaynightmod;
 
-import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
+import com.github.mozartsghost1212.customdaynightmod.core.SeasonalCalendar;
+import com.github.mozartsghost1212.customdaynightmod.core.SpeedCurve;
+import com.github.mozartsghost1212.customdaynightmod.jfr.ConfigIoEvent;
+
 import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Properties;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 /**
  * ModConfig handles the configuration for the Custom Day/Night Mod.
@@ -21,112 +35,824 @@ import java.util.Properties;
  *   <li><b>absoluteDayLength</b>: Absolute length of the day phase (overrides multiplier if set).</li>
  *   <li><b>absoluteNightLength</b>: Absolute length of the night phase (overrides multiplier if set).</li>
  *   <li><b>logPhaseChanges</b>: Whether to log day/night phase changes.</li>
+ *   <li><b>watchConfigFile</b>: Whether edits to the file are picked up automatically.</li>
+ *   <li><b>timeSyncThreshold</b>: Client time drift (in game ticks) that triggers an extra time update; 0 = off.</li>
+ *   <li><b>speedCurve</b>: Name of the speed curve the Overworld follows instead of the multipliers; empty = none.</li>
+ *   <li><b>calendarEnabled</b>: Whether the Overworld follows a {@link SeasonalCalendar} of
+ *       {@code calendarYearLength} days whose phases range from {@code calendarShortestPhase}
+ *       to {@code calendarLongestPhase} ticks. A speed curve takes precedence.</li>
+ *   <li><b>wallClockMode</b>: Whether time advances with real time instead of server ticks, so a
+ *       lagging server does not stretch the cycle.</li>
+ *   <li><b>maxCatchUpTicks</b>: Most nominal ticks of real time a single lagging tick is credited with.</li>
+ *   <li><b>idleMode</b>: What happens to time while nobody is online, see {@link IdleMode}.</li>
+ *   <li><b>idleJumpTime</b>: Time of day (0–23999) to jump to when the first player joins in
+ *       {@link IdleMode#JUMP} mode.</li>
+ *   <li><b>compactMenu</b>: Whether commands that change a setting re-send only the menu rows that changed.</li>
+ *   <li><b>prometheusFile</b>: Path of a Prometheus textfile the metrics are exported to; empty = off.</li>
+ *   <li><b>prometheusInterval</b>: Seconds between two exports.</li>
+ *   <li><b>traceTicks</b>: Number of per-tick records kept in the trace ring file; 0 = off.</li>
  * </ul>
  *
+ * <p>
+ * Speed curves are defined with {@code curve.<name>=<time>:<rate>, ...} keys and compiled into
+ * {@link SpeedCurve} lookup tables when the file is read. Any schedule can select one by name.
+ * </p>
+ *
+ * <p>
+ * The top-level day/night settings apply to the Overworld. Other dimensions with their own
+ * time of day can be given a separate schedule with a group of {@code dimension.<alias>.*}
+ * keys, where {@code <alias>} is any name and {@code dimension.<alias>.id} holds the dimension
+ * id (for example {@code mymod:skylands}). Dimensions without a schedule are left alone.
+ * </p>
+ *
+ * <p>
+ * Each instance is an immutable snapshot. The active snapshot is published through a
+ * single atomic reference, so readers such as the tick handler load it once and never see
+ * a half-applied change. Values derived from the settings (the fixed-point step per phase
+ * and the effective tick count per phase) are computed once when the snapshot is built.
+ * Changes are made with {@link #update(Consumer)}, which clamps the new values and
+ * publishes a fresh snapshot.
+ * </p>
+ *
  * The {@link #loadConfig()} method loads the configuration from the file,
- * creating it with default values if it does not exist.
+ * creating it with default values if it does not exist. Runtime saves and reloads go
+ * through {@link ConfigPersistence}, which keeps disk I/O off the server thread.
  */
-public class ModConfig {
+public final class ModConfig {
     // ── Bounds ──
     public static final float MIN_MULTIPLIER = 0.01f;
     public static final float MAX_MULTIPLIER = 100.0f;
     /** Minimum absolute length when enabled (>0). 20 ticks = 1 second. */
     public static final int MIN_ABSOLUTE_LENGTH = 20;
     public static final int MAX_ABSOLUTE_LENGTH = 2_400_000; // ~2h real-time
+    public static final int MAX_TIME_SYNC_THRESHOLD = 1200;
+    public static final int MIN_YEAR_LENGTH = 4;
+    public static final int MAX_YEAR_LENGTH = 3650;
+    public static final int MIN_CATCH_UP_TICKS = 1;
+    public static final int MAX_CATCH_UP_TICKS = 1200;
+    public static final int MAX_TIME_OF_DAY = 23999;
+    public static final int MIN_PROMETHEUS_INTERVAL = 1;
+    public static final int MAX_PROMETHEUS_INTERVAL = 3600;
+    public static final int MIN_TRACE_TICKS = 1200;
+    public static final int MAX_TRACE_TICKS = 1_728_000; // one day at 20 TPS, ~66 MB
 
-    public static float dayMultiplier = 1.0f;
-    public static float nightMultiplier = 1.0f;
-    public static int absoluteDayLength = 0;
-    public static int absoluteNightLength = 0;
-    public static boolean logPhaseChanges = true;
+    /** Vanilla day or night length in ticks. */
+    public static final int DEFAULT_HALF_CYCLE = 12000;
 
-    private static final String CONFIG_PATH = "config/customdaynightmod.properties";
+    public static final String OVERWORLD_ID = "minecraft:overworld";
+    private static final String DIMENSION_PREFIX = "dimension.";
+    private static final String CURVE_PREFIX = "curve.";
 
-    public static void loadConfig() {
-        Properties props = new Properties();
+    static final Path CONFIG_PATH = Path.of("config", "customdaynightmod.properties");
 
-        File file = new File(CONFIG_PATH);
-        if (!file.exists()) {
-            saveConfig(); // Create default config file
-        }
+    private static final AtomicInteger VERSIONS = new AtomicInteger();
+    public static final ModConfig DEFAULTS = new Builder().build();
+    private static final AtomicReference<ModConfig> CURRENT = new AtomicReference<>(DEFAULTS);
 
-        try (FileReader reader = new FileReader(file)) {
-            props.load(reader);
+    // ── Settings ──
+    private final float dayMultiplier;
+    private final float nightMultiplier;
+    private final int absoluteDayLength;
+    private final int absoluteNightLength;
+    private final boolean logPhaseChanges;
+    private final boolean watchConfigFile;
+    private final int timeSyncThreshold;
+    private final String speedCurve;
+    private final boolean calendarEnabled;
+    private final int calendarYearLength;
+    private final int calendarShortestPhase;
+    private final int calendarLongestPhase;
+    private final boolean wallClockMode;
+    private final int maxCatchUpTicks;
+    private final IdleMode idleMode;
+    private final int idleJumpTime;
+    private final boolean compactMenu;
+    private final String prometheusFile;
+    private final int prometheusInterval;
+    private final int traceTicks;
 
-            dayMultiplier = Float.parseFloat(props.getProperty("day_multiplier", "1.0"));
-            nightMultiplier = Float.parseFloat(props.getProperty("night_multiplier", "1.0"));
-            absoluteDayLength = Integer.parseInt(props.getProperty("absolute_day_length", "0"));
-            absoluteNightLength = Integer.parseInt(props.getProperty("absolute_night_length", "0"));
-            logPhaseChanges = Boolean.parseBoolean(props.getProperty("log_phase_changes", "true"));
+    /** Compiled speed curves, keyed by name, in definition order. */
+    private final Map<String, SpeedCurve> curves;
 
-            clampValues();
+    /** Schedules for dimensions other than the Overworld, keyed by dimension id. */
+    private final Map<String, CycleSchedule> dimensionSchedules;
 
-            System.out.println(CustomDayNightMod.LOG_PREFIX + " Loaded config: dayMultiplier=" + dayMultiplier +
-                    ", nightMultiplier=" + nightMultiplier +
-                    ", absoluteDayLength=" + absoluteDayLength +
-                    ", absoluteNightLength=" + absoluteNightLength +
-                    ", logPhaseChanges=" + logPhaseChanges);
+    // ── Derived values ──
+    private final CycleSchedule overworldSchedule;
+    private final int version;
 
-        } catch (IOException e) {
-            e.printStackTrace();
+    private ModConfig(Builder builder) {
+        this.dayMultiplier = builder.dayMultiplier;
+        this.nightMultiplier = builder.nightMultiplier;
+        this.absoluteDayLength = builder.absoluteDayLength;
+        this.absoluteNightLength = builder.absoluteNightLength;
+        this.logPhaseChanges = builder.logPhaseChanges;
+        this.watchConfigFile = builder.watchConfigFile;
+        this.timeSyncThreshold = builder.timeSyncThreshold;
+        this.speedCurve = builder.speedCurve;
+        this.calendarEnabled = builder.calendarEnabled;
+        this.calendarYearLength = builder.calendarYearLength;
+        this.calendarShortestPhase = builder.calendarShortestPhase;
+        this.calendarLongestPhase = builder.calendarLongestPhase;
+        this.wallClockMode = builder.wallClockMode;
+        this.maxCatchUpTicks = builder.maxCatchUpTicks;
+        this.idleMode = builder.idleMode;
+        this.idleJumpTime = builder.idleJumpTime;
+        this.compactMenu = builder.compactMenu;
+        this.prometheusFile = builder.prometheusFile;
+        this.prometheusInterval = builder.prometheusInterval;
+        this.traceTicks = builder.traceTicks;
+        this.curves = Collections.unmodifiableMap(new LinkedHashMap<>(builder.curves));
+        this.dimensionSchedules = Collections.unmodifiableMap(new LinkedHashMap<>(builder.dimensionSchedules));
+
+        SeasonalCalendar calendar = calendarEnabled
+                ? new SeasonalCalendar(calendarYearLength, calendarShortestPhase, calendarLongestPhase)
+                : null;
+        this.overworldSchedule = new CycleSchedule(dayMultiplier, nightMultiplier, absoluteDayLength, absoluteNightLength,
+                curves.get(speedCurve), calendar);
+        this.version = VERSIONS.incrementAndGet();
+    }
+
+    // ── Publication ──
+
+    /** Returns the currently active configuration snapshot. */
+    public static ModConfig get() {
+        return CURRENT.get();
+    }
+
+    /** Publishes a snapshot as the active configuration. Safe to call from any thread. */
+    public static void publish(ModConfig config) {
+        CURRENT.set(config);
+    }
+
+    /**
+     * Atomically derives a new snapshot from the current one and publishes it.
+     * The builder is clamped before the snapshot is built.
+     *
+     * @return the published snapshot
+     */
+    public static ModConfig update(Consumer<Builder> changes) {
+        while (true) {
+            ModConfig previous = CURRENT.get();
+            Builder builder = previous.toBuilder();
+            changes.accept(builder);
+            ModConfig next = builder.build();
+            if (CURRENT.compareAndSet(previous, next)) {
+                return next;
+            }
         }
     }
 
+    // ── Persistence ──
+
     /**
-     * Saves the current configuration values to the properties file on disk.
+     * Loads the configuration from disk and publishes it. Blocks the calling thread, so it
+     * is only used during mod initialization; at runtime use {@link ConfigPersistence#loadAsync()}.
+     * <p>
+     * A file that cannot be read or holds a malformed value (a bad number, an unknown idle mode)
+     * is reported and the defaults stay in place, so a typo never stops the server from starting.
+     * </p>
      */
-    public static void saveConfig() {
-        File file = new File(CONFIG_PATH);
+    public static void loadConfig() {
         try {
-            file.getParentFile().mkdirs();
-            try (FileWriter writer = new FileWriter(file)) {
-                writer.write("# Custom Day/Night Mod Config\n");
-                writer.write("day_multiplier=" + dayMultiplier + "\n");
-                writer.write("night_multiplier=" + nightMultiplier + "\n");
-                writer.write("absolute_day_length=" + absoluteDayLength + "\n");
-                writer.write("absolute_night_length=" + absoluteNightLength + "\n");
-                writer.write("log_phase_changes=" + logPhaseChanges + "\n");
-            }
-            System.out.println(CustomDayNightMod.LOG_PREFIX + " Config saved to disk.");
-        } catch (IOException e) {
-            e.printStackTrace();
+            ModConfig config = readConfig("load");
+            publish(config);
+
+            ModLog.info(ModLog.Category.CONFIG,
+                    "event=config_loaded dayMultiplier={} nightMultiplier={} absoluteDayLength={} absoluteNightLength={}"
+                            + " logPhaseChanges={} watchConfigFile={} timeSyncThreshold={} speedCurve={} curves={}"
+                            + " calendarEnabled={} wallClockMode={} maxCatchUpTicks={} idleMode={}"
+                            + " prometheusFile={} traceTicks={} dimensionSchedules={}",
+                    config.dayMultiplier, config.nightMultiplier, config.absoluteDayLength, config.absoluteNightLength,
+                    config.logPhaseChanges, config.watchConfigFile, config.timeSyncThreshold, config.speedCurve,
+                    String.join(",", config.curves.keySet()), config.calendarEnabled,
+                    config.wallClockMode, config.maxCatchUpTicks, config.idleMode.configName(), config.prometheusFile, config.traceTicks,
+                    String.join(",", config.dimensionSchedules.keySet()));
+
+        } catch (IOException | RuntimeException e) {
+            ModLog.warn(ModLog.Category.IO, e, "event=config_load_failed path={}", CONFIG_PATH);
         }
     }
 
     /**
-     * Resets all configuration values to their defaults (does not save to disk).
+     * Reads and clamps the configuration file without publishing it.
+     * Creates the file with default values if it does not exist.
+     *
+     * @param operation why the file is read ({@code load}, {@code reload} or {@code watch}),
+     *                  recorded in the {@link ConfigIoEvent}
      */
-    public static void resetDefaults() {
-        dayMultiplier = 1.0f;
-        nightMultiplier = 1.0f;
-        absoluteDayLength = 0;
-        absoluteNightLength = 0;
-        logPhaseChanges = true;
+    static ModConfig readConfig(String operation) throws IOException {
+        if (!Files.exists(CONFIG_PATH)) {
+            writeConfig(DEFAULTS); // Create default config file
+        }
+
+        ConfigIoEvent event = new ConfigIoEvent();
+        event.begin();
+        event.operation = operation;
+        try {
+            byte[] content = Files.readAllBytes(CONFIG_PATH);
+            event.bytes = content.length;
+            ModConfig config = parse(new String(content, StandardCharsets.UTF_8));
+            event.success = true;
+            return config;
+        } finally {
+            event.commit();
+        }
+    }
+
+    private static ModConfig parse(String content) throws IOException {
+        Properties props = new Properties();
+        props.load(new StringReader(content));
+
+        Builder builder = new Builder()
+                .dayMultiplier(Float.parseFloat(props.getProperty("day_multiplier", "1.0")))
+                .nightMultiplier(Float.parseFloat(props.getProperty("night_multiplier", "1.0")))
+                .absoluteDayLength(Integer.parseInt(props.getProperty("absolute_day_length", "0")))
+                .absoluteNightLength(Integer.parseInt(props.getProperty("absolute_night_length", "0")))
+                .logPhaseChanges(Boolean.parseBoolean(props.getProperty("log_phase_changes", "true")))
+                .watchConfigFile(Boolean.parseBoolean(props.getProperty("watch_config_file", "false")))
+                .timeSyncThreshold(Integer.parseInt(props.getProperty("time_sync_threshold", "20")))
+                .speedCurve(props.getProperty("speed_curve", "").trim())
+                .calendarEnabled(Boolean.parseBoolean(props.getProperty("calendar_enabled", "false")))
+                .calendarYearLength(Integer.parseInt(props.getProperty("calendar_year_length", "96")))
+                .calendarShortestPhase(Integer.parseInt(props.getProperty("calendar_shortest_phase", "7200")))
+                .calendarLongestPhase(Integer.parseInt(props.getProperty("calendar_longest_phase", "16800")))
+                .wallClockMode(Boolean.parseBoolean(props.getProperty("wall_clock_mode", "false")))
+                .maxCatchUpTicks(Integer.parseInt(props.getProperty("max_catch_up_ticks", "100")))
+                .idleMode(IdleMode.byName(props.getProperty("idle_mode", "keep")))
+                .idleJumpTime(Integer.parseInt(props.getProperty("idle_jump_time", "0")))
+                .compactMenu(Boolean.parseBoolean(props.getProperty("compact_menu", "false")))
+                .prometheusFile(props.getProperty("prometheus_file", "").trim())
+                .prometheusInterval(Integer.parseInt(props.getProperty("prometheus_interval", "15")))
+                .traceTicks(Integer.parseInt(props.getProperty("trace_ticks", "0")));
+
+        // Curves first, so dimension schedules can refer to them; sorted for a stable menu order.
+        // A broken curve is dropped with a warning instead of rejecting the whole file.
+        for (String key : new TreeSet<>(props.stringPropertyNames())) {
+            if (key.startsWith(CURVE_PREFIX)) {
+                String name = key.substring(CURVE_PREFIX.length());
+                try {
+                    if (!isValidCurveName(name)) {
+                        throw new IllegalArgumentException("Invalid curve name '" + name + "'");
+                    }
+                    builder.curve(SpeedCurve.parse(name, props.getProperty(key), MIN_MULTIPLIER, MAX_MULTIPLIER));
+                } catch (IllegalArgumentException e) {
+                    ModLog.warn(ModLog.Category.CONFIG, "event=curve_ignored key={} error=\"{}\"", key, e.getMessage());
+                }
+            }
+        }
+        builder.speedCurve(knownCurve(builder, "speed_curve", builder.speedCurve));
+
+        for (String key : props.stringPropertyNames()) {
+            if (!key.startsWith(DIMENSION_PREFIX) || !key.endsWith(".id")) {
+                continue;
+            }
+            String prefix = key.substring(0, key.length() - "id".length());
+            String id = props.getProperty(key).trim();
+            if (id.equals(OVERWORLD_ID)) {
+                continue; // the Overworld uses the top-level keys
+            }
+            builder.dimensionSchedule(id, new CycleSchedule(
+                    Float.parseFloat(props.getProperty(prefix + "day_multiplier", "1.0")),
+                    Float.parseFloat(props.getProperty(prefix + "night_multiplier", "1.0")),
+                    Integer.parseInt(props.getProperty(prefix + "absolute_day_length", "0")),
+                    Integer.parseInt(props.getProperty(prefix + "absolute_night_length", "0")),
+                    builder.curves.get(knownCurve(builder, prefix + "speed_curve",
+                            props.getProperty(prefix + "speed_curve", "").trim())), null));
+        }
+        return builder.build();
+    }
+
+    /** Returns the curve name if the builder has such a curve, otherwise warns and returns "" (none). */
+    private static String knownCurve(Builder builder, String key, String name) {
+        if (name.isEmpty() || builder.curves.containsKey(name)) {
+            return name;
+        }
+        ModLog.warn(ModLog.Category.CONFIG, "event=speed_curve_unknown key={} name={}", key, name);
+        return "";
+    }
+
+    /** Curve names are used in config keys and commands, so they are limited to word characters. */
+    public static boolean isValidCurveName(String name) {
+        return name.matches("[A-Za-z0-9_]+");
     }
 
     /**
-     * Clamps all values to safe ranges to prevent crashes.
-     * Absolute lengths of 0 are allowed (meaning "disabled").
+     * Writes a snapshot to the properties file. The content goes to a temporary file in the
+     * same directory first and is then moved over the real file, so a crash mid-write never
+     * leaves a truncated config behind.
      */
-    public static void clampValues() {
-        dayMultiplier = Math.max(MIN_MULTIPLIER, Math.min(MAX_MULTIPLIER, dayMultiplier));
-        nightMultiplier = Math.max(MIN_MULTIPLIER, Math.min(MAX_MULTIPLIER, nightMultiplier));
-        if (absoluteDayLength != 0) {
-            absoluteDayLength = Math.max(MIN_ABSOLUTE_LENGTH, Math.min(MAX_ABSOLUTE_LENGTH, absoluteDayLength));
+    static void writeConfig(ModConfig config) throws IOException {
+        ConfigIoEvent event = new ConfigIoEvent();
+        event.begin();
+        event.operation = "save";
+        try {
+            byte[] content = config.serialize().getBytes(StandardCharsets.UTF_8);
+            event.bytes = content.length;
+            Files.createDirectories(CONFIG_PATH.getParent());
+            Path temp = CONFIG_PATH.resolveSibling(CONFIG_PATH.getFileName() + ".tmp");
+            Files.write(temp, content);
+            try {
+                Files.move(temp, CONFIG_PATH, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, CONFIG_PATH, StandardCopyOption.REPLACE_EXISTING);
+            }
+            event.success = true;
+        } finally {
+            event.commit();
         }
-        if (absoluteNightLength != 0) {
-            absoluteNightLength = Math.max(MIN_ABSOLUTE_LENGTH, Math.min(MAX_ABSOLUTE_LENGTH, absoluteNightLength));
+    }
+
+    /** Renders this snapshot in the properties file format. */
+    String serialize() {
+        return "# Custom Day/Night Mod Config\n"
+                + "day_multiplier=" + dayMultiplier + "\n"
+                + "night_multiplier=" + nightMultiplier + "\n"
+                + "absolute_day_length=" + absoluteDayLength + "\n"
+                + "absolute_night_length=" + absoluteNightLength + "\n"
+                + "log_phase_changes=" + logPhaseChanges + "\n"
+                + "watch_config_file=" + watchConfigFile + "\n"
+                + "time_sync_threshold=" + timeSyncThreshold + "\n"
+                + "speed_curve=" + speedCurve + "\n"
+                + "calendar_enabled=" + calendarEnabled + "\n"
+                + "calendar_year_length=" + calendarYearLength + "\n"
+                + "calendar_shortest_phase=" + calendarShortestPhase + "\n"
+                + "calendar_longest_phase=" + calendarLongestPhase + "\n"
+                + "wall_clock_mode=" + wallClockMode + "\n"
+                + "max_catch_up_ticks=" + maxCatchUpTicks + "\n"
+                + "idle_mode=" + idleMode.configName() + "\n"
+                + "idle_jump_time=" + idleJumpTime + "\n"
+                + "compact_menu=" + compactMenu + "\n"
+                + "prometheus_file=" + prometheusFile + "\n"
+                + "prometheus_interval=" + prometheusInterval + "\n"
+                + "trace_ticks=" + traceTicks + "\n"
+                + serializeCurves()
+                + serializeDimensionSchedules();
+    }
+
+    private String serializeCurves() {
+        StringBuilder out = new StringBuilder();
+        for (SpeedCurve curve : curves.values()) {
+            out.append(CURVE_PREFIX).append(curve.name()).append("=").append(curve.definition()).append("\n");
         }
+        return out.toString();
+    }
+
+    private String serializeDimensionSchedules() {
+        StringBuilder out = new StringBuilder();
+        for (Map.Entry<String, CycleSchedule> entry : dimensionSchedules.entrySet()) {
+            String prefix = DIMENSION_PREFIX + entry.getKey().replaceAll("[^A-Za-z0-9_]", "_") + ".";
+            CycleSchedule schedule = entry.getValue();
+            out.append("\n")
+                    .append(prefix).append("id=").append(entry.getKey()).append("\n")
+                    .append(prefix).append("day_multiplier=").append(schedule.dayMultiplier()).append("\n")
+                    .append(prefix).append("night_multiplier=").append(schedule.nightMultiplier()).append("\n")
+                    .append(prefix).append("absolute_day_length=").append(schedule.absoluteDayLength()).append("\n")
+                    .append(prefix).append("absolute_night_length=").append(schedule.absoluteNightLength()).append("\n")
+                    .append(prefix).append("speed_curve=").append(schedule.curve() != null ? schedule.curve().name() : "")
+                    .append("\n");
+        }
+        return out.toString();
+    }
+
+    /**
+     * Resets all configuration values to their defaults (does not save to disk).
+     */
+    public static void resetDefaults() {
+        publish(new Builder().build());
     }
 
-    /** Clamps a multiplier value to safe bounds. */
+    // ── Clamping ──
+
+    /** Clamps a multiplier value to safe bounds; NaN (e.g. from the file) becomes the vanilla 1.0. */
     public static float clampMultiplier(float value) {
+        if (Float.isNaN(value)) {
+            return 1.0f;
+        }
         return Math.max(MIN_MULTIPLIER, Math.min(MAX_MULTIPLIER, value));
     }
 
+    /** Clamps the time sync threshold (0 = extra updates disabled). */
+    public static int clampTimeSyncThreshold(int value) {
+        return Math.max(0, Math.min(MAX_TIME_SYNC_THRESHOLD, value));
+    }
+
+    /** Clamps the calendar year length in days. */
+    public static int clampYearLength(int value) {
+        return Math.max(MIN_YEAR_LENGTH, Math.min(MAX_YEAR_LENGTH, value));
+    }
+
+    /** Clamps the real time credited to one tick, in nominal ticks. */
+    public static int clampCatchUpTicks(int value) {
+        return Math.max(MIN_CATCH_UP_TICKS, Math.min(MAX_CATCH_UP_TICKS, value));
+    }
+
+    /** Clamps the seconds between two Prometheus exports. */
+    public static int clampPrometheusInterval(int value) {
+        return Math.max(MIN_PROMETHEUS_INTERVAL, Math.min(MAX_PROMETHEUS_INTERVAL, value));
+    }
+
+    /** Clamps the size of the tick trace ring (0 = off). */
+    public static int clampTraceTicks(int value) {
+        if (value <= 0) return 0;
+        return Math.max(MIN_TRACE_TICKS, Math.min(MAX_TRACE_TICKS, value));
+    }
+
+    /** Clamps a time of day to one day. */
+    public static int clampTimeOfDay(int value) {
+        return Math.max(0, Math.min(MAX_TIME_OF_DAY, value));
+    }
+
+    /** Clamps a calendar phase length; unlike absolute lengths it cannot be disabled. */
+    public static int clampCalendarPhase(int value) {
+        return Math.max(MIN_ABSOLUTE_LENGTH, Math.min(MAX_ABSOLUTE_LENGTH, value));
+    }
+
     /** Clamps an absolute length value to safe bounds (0 = disabled). */
     public static int clampAbsoluteLength(int value) {
         if (value <= 0) return 0;
         return Math.max(MIN_ABSOLUTE_LENGTH, Math.min(MAX_ABSOLUTE_LENGTH, value));
     }
-}
\ No newline at end of file
+
+    // ── Accessors ──
+
+    public float dayMultiplier() {
+        return dayMultiplier;
+    }
+
+    public float nightMultiplier() {
+        return nightMultiplier;
+    }
+
+    public int absoluteDayLength() {
+        return absoluteDayLength;
+    }
+
+    public int absoluteNightLength() {
+        return absoluteNightLength;
+    }
+
+    public boolean logPhaseChanges() {
+        return logPhaseChanges;
+    }
+
+    public boolean watchConfigFile() {
+        return watchConfigFile;
+    }
+
+    /** Client time drift in game ticks that triggers an extra time update (0 = off). */
+    public int timeSyncThreshold() {
+        return timeSyncThreshold;
+    }
+
+    /** Name of the speed curve selected for the Overworld, or an empty string. */
+    public String speedCurve() {
+        return speedCurve;
+    }
+
+    public boolean calendarEnabled() {
+        return calendarEnabled;
+    }
+
+    /** Days per calendar year. */
+    public int calendarYearLength() {
+        return calendarYearLength;
+    }
+
+    /** Shortest calendar phase (mid-winter day, mid-summer night) in server ticks. */
+    public int calendarShortestPhase() {
+        return calendarShortestPhase;
+    }
+
+    /** Longest calendar phase (mid-summer day, mid-winter night) in server ticks. */
+    public int calendarLongestPhase() {
+        return calendarLongestPhase;
+    }
+
+    /** Whether time advances with real time rather than with server ticks. */
+    public boolean wallClockMode() {
+        return wallClockMode;
+    }
+
+    /** Most nominal ticks of real time credited to a single tick in wall-clock mode. */
+    public int maxCatchUpTicks() {
+        return maxCatchUpTicks;
+    }
+
+    /** What happens to time while no players are online. */
+    public IdleMode idleMode() {
+        return idleMode;
+    }
+
+    /** Time of day jumped to when the first player joins in {@link IdleMode#JUMP} mode. */
+    public int idleJumpTime() {
+        return idleJumpTime;
+    }
+
+    /** Whether commands that change a setting re-send only the menu rows that changed. */
+    public boolean compactMenu() {
+        return compactMenu;
+    }
+
+    /** Path of the Prometheus textfile the metrics are written to, or empty when exporting is off. */
+    public String prometheusFile() {
+        return prometheusFile;
+    }
+
+    /** Seconds between two Prometheus exports. */
+    public int prometheusInterval() {
+        return prometheusInterval;
+    }
+
+    /** Number of records kept in the tick trace ring, or 0 when tracing is off. */
+    public int traceTicks() {
+        return traceTicks;
+    }
+
+    /** Defined speed curves, keyed by name. */
+    public Map<String, SpeedCurve> curves() {
+        return curves;
+    }
+
+    /** Fixed-point game ticks per server tick during the Overworld day. */
+    public long dayStep() {
+        return overworldSchedule.dayStep();
+    }
+
+    /** Fixed-point game ticks per server tick during the Overworld night. */
+    public long nightStep() {
+        return overworldSchedule.nightStep();
+    }
+
+    /** Real-time length of the Overworld day phase in server ticks. */
+    public int effectiveDayTicks() {
+        return overworldSchedule.effectiveDayTicks();
+    }
+
+    /** Real-time length of the Overworld night phase in server ticks. */
+    public int effectiveNightTicks() {
+        return overworldSchedule.effectiveNightTicks();
+    }
+
+    /** The Overworld schedule built from the top-level settings. */
+    public CycleSchedule overworldSchedule() {
+        return overworldSchedule;
+    }
+
+    /** Schedules for other dimensions, keyed by dimension id. */
+    public Map<String, CycleSchedule> dimensionSchedules() {
+        return dimensionSchedules;
+    }
+
+    /**
+     * Returns the schedule for a dimension id, or {@code null} if that dimension's
+     * time should be left alone.
+     */
+    public CycleSchedule scheduleFor(String dimensionId) {
+        if (OVERWORLD_ID.equals(dimensionId)) {
+            return overworldSchedule;
+        }
+        return dimensionSchedules.get(dimensionId);
+    }
+
+    /** Unique, increasing number identifying this snapshot. */
+    public int version() {
+        return version;
+    }
+
+    public Builder toBuilder() {
+        return new Builder()
+                .dayMultiplier(dayMultiplier)
+                .nightMultiplier(nightMultiplier)
+                .absoluteDayLength(absoluteDayLength)
+                .absoluteNightLength(absoluteNightLength)
+                .logPhaseChanges(logPhaseChanges)
+                .watchConfigFile(watchConfigFile)
+                .timeSyncThreshold(timeSyncThreshold)
+                .speedCurve(speedCurve)
+                .calendarEnabled(calendarEnabled)
+                .calendarYearLength(calendarYearLength)
+                .calendarShortestPhase(calendarShortestPhase)
+                .calendarLongestPhase(calendarLongestPhase)
+                .wallClockMode(wallClockMode)
+                .maxCatchUpTicks(maxCatchUpTicks)
+                .idleMode(idleMode)
+                .idleJumpTime(idleJumpTime)
+                .compactMenu(compactMenu)
+                .prometheusFile(prometheusFile)
+                .prometheusInterval(prometheusInterval)
+                .traceTicks(traceTicks)
+                .curves(curves)
+                .dimensionSchedules(dimensionSchedules);
+    }
+
+    /** Returns whether both snapshots hold the same settings, ignoring their versions. */
+    public boolean hasSameSettings(ModConfig other) {
+        return serialize().equals(other.serialize());
+    }
+
+    /**
+     * Mutable staging area for a new {@link ModConfig} snapshot.
+     * Starts with default values.
+     */
+    public static final class Builder {
+        private float dayMultiplier = 1.0f;
+        private float nightMultiplier = 1.0f;
+        private int absoluteDayLength = 0;
+        private int absoluteNightLength = 0;
+        private boolean logPhaseChanges = true;
+        private boolean watchConfigFile = false;
+        private int timeSyncThreshold = 20;
+        private String speedCurve = "";
+        private boolean calendarEnabled = false;
+        private int calendarYearLength = 96;
+        private int calendarShortestPhase = 7200;
+        private int calendarLongestPhase = 16800;
+        private boolean wallClockMode = false;
+        private int maxCatchUpTicks = 100;
+        private IdleMode idleMode = IdleMode.KEEP;
+        private int idleJumpTime = 0;
+        private boolean compactMenu = false;
+        private String prometheusFile = "";
+        private int prometheusInterval = 15;
+        private int traceTicks = 0;
+        private final Map<String, SpeedCurve> curves = new LinkedHashMap<>();
+        private final Map<String, CycleSchedule> dimensionSchedules = new LinkedHashMap<>();
+
+        public Builder dayMultiplier(float value) {
+            this.dayMultiplier = value;
+            return this;
+        }
+
+        public Builder nightMultiplier(float value) {
+            this.nightMultiplier = value;
+            return this;
+        }
+
+        public Builder absoluteDayLength(int value) {
+            this.absoluteDayLength = value;
+            return this;
+        }
+
+        public Builder absoluteNightLength(int value) {
+            this.absoluteNightLength = value;
+            return this;
+        }
+
+        public Builder logPhaseChanges(boolean value) {
+            this.logPhaseChanges = value;
+            return this;
+        }
+
+        public Builder watchConfigFile(boolean value) {
+            this.watchConfigFile = value;
+            return this;
+        }
+
+        public Builder timeSyncThreshold(int value) {
+            this.timeSyncThreshold = value;
+            return this;
+        }
+
+        /** Selects a curve for the Overworld by name; an empty string selects none. */
+        public Builder speedCurve(String name) {
+            this.speedCurve = name;
+            return this;
+        }
+
+        public Builder calendarEnabled(boolean value) {
+            this.calendarEnabled = value;
+            return this;
+        }
+
+        public Builder calendarYearLength(int value) {
+            this.calendarYearLength = value;
+            return this;
+        }
+
+        public Builder calendarShortestPhase(int value) {
+            this.calendarShortestPhase = value;
+            return this;
+        }
+
+        public Builder calendarLongestPhase(int value) {
+            this.calendarLongestPhase = value;
+            return this;
+        }
+
+        public Builder wallClockMode(boolean value) {
+            this.wallClockMode = value;
+            return this;
+        }
+
+        public Builder maxCatchUpTicks(int value) {
+            this.maxCatchUpTicks = value;
+            return this;
+        }
+
+        public Builder idleMode(IdleMode value) {
+            this.idleMode = value;
+            return this;
+        }
+
+        public Builder idleJumpTime(int value) {
+            this.idleJumpTime = value;
+            return this;
+        }
+
+        public Builder compactMenu(boolean value) {
+            this.compactMenu = value;
+            return this;
+        }
+
+        /** Sets the export path; an empty string turns exporting off. */
+        public Builder prometheusFile(String path) {
+            this.prometheusFile = path;
+            return this;
+        }
+
+        public Builder prometheusInterval(int value) {
+            this.prometheusInterval = value;
+            return this;
+        }
+
+        public Builder traceTicks(int value) {
+            this.traceTicks = value;
+            return this;
+        }
+
+        public Builder toggleCompactMenu() {
+            this.compactMenu = !compactMenu;
+            return this;
+        }
+
+        public Builder toggleWallClock() {
+            this.wallClockMode = !wallClockMode;
+            return this;
+        }
+
+        public Builder toggleCalendar() {
+            this.calendarEnabled = !calendarEnabled;
+            return this;
+        }
+
+        /** Adds or replaces a curve definition. */
+        public Builder curve(SpeedCurve curve) {
+            this.curves.put(curve.name(), curve);
+            return this;
+        }
+
+        public Builder curves(Map<String, SpeedCurve> curves) {
+            this.curves.clear();
+            this.curves.putAll(curves);
+            return this;
+        }
+
+        public Builder dimensionSchedule(String dimensionId, CycleSchedule schedule) {
+            this.dimensionSchedules.put(dimensionId, schedule);
+            return this;
+        }
+
+        public Builder dimensionSchedules(Map<String, CycleSchedule> schedules) {
+            this.dimensionSchedules.clear();
+            this.dimensionSchedules.putAll(schedules);
+            return this;
+        }
+
+        public Builder togglePhaseLogging() {
+            this.logPhaseChanges = !logPhaseChanges;
+            return this;
+        }
+
+        /**
+         * Clamps all values to safe ranges to prevent crashes.
+         * Absolute lengths of 0 are allowed (meaning "disabled").
+         */
+        public Builder clampValues() {
+            dayMultiplier = clampMultiplier(dayMultiplier);
+            nightMultiplier = clampMultiplier(nightMultiplier);
+            absoluteDayLength = clampAbsoluteLength(absoluteDayLength);
+            absoluteNightLength = clampAbsoluteLength(absoluteNightLength);
+            timeSyncThreshold = clampTimeSyncThreshold(timeSyncThreshold);
+            calendarYearLength = clampYearLength(calendarYearLength);
+            calendarShortestPhase = clampCalendarPhase(calendarShortestPhase);
+            calendarLongestPhase = clampCalendarPhase(calendarLongestPhase);
+            maxCatchUpTicks = clampCatchUpTicks(maxCatchUpTicks);
+            idleJumpTime = clampTimeOfDay(idleJumpTime);
+            prometheusInterval = clampPrometheusInterval(prometheusInterval);
+            traceTicks = clampTraceTicks(traceTicks);
+            if (calendarShortestPhase > calendarLongestPhase) {
+                int swap = calendarShortestPhase;
+                calendarShortestPhase = calendarLongestPhase;
+                calendarLongestPhase = swap;
+            }
+            return this;
+        }
+
+        /** Clamps the staged values and builds an immutable snapshot. */
+        public ModConfig build() {
+            clampValues();
+            return new ModConfig(this);
+        }
+    }
+}
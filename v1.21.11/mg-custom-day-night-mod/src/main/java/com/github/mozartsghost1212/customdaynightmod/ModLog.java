@@ -0,0 +1,168 @@
+package com.github.mozartsghost1212.customdaynightmod;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+import org.slf4j.event.Level;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Logging for the mod, on top of the SLF4J logger the server already ships (backed by Log4j).
+ * <p>
+ * Messages are parameterized and written as {@code event=<name> key=value ...} so log shippers can
+ * parse them without regexes. Every message belongs to a {@link Category} that carries its own
+ * rate limit: a fixed number of messages per {@link #WINDOW_NANOS}. Anything above is dropped, and
+ * the number of suppressed messages is reported with the next one that gets through.
+ * </p>
+ * <p>
+ * Callers never format or write on their own thread. An accepted message is put on a bounded
+ * queue and logged by a daemon thread, so a slow appender cannot stall the server tick. When the
+ * queue is full the message is dropped and counted rather than blocking.
+ * </p>
+ */
+public final class ModLog {
+
+    /** Length of the rate-limit window. */
+    static final long WINDOW_NANOS = 60_000_000_000L;
+    private static final int QUEUE_CAPACITY = 256;
+
+    /** Marker on phase change messages, so they can be filtered or routed separately. */
+    public static final Marker PHASE_MARKER = MarkerFactory.getMarker("CUSTOMDAYNIGHT_PHASE");
+
+    private static final Logger LOGGER = LoggerFactory.getLogger("CustomDayNightMod");
+
+    /** Message categories, each with its own rate limit. */
+    public enum Category {
+        LIFECYCLE(20),
+        CONFIG(20),
+        IO(10),
+        PHASE(30);
+
+        private final int burst;
+        private long windowStart = Long.MIN_VALUE;
+        private int used = 0;
+        private int suppressed = 0;
+
+        Category(int burst) {
+            this.burst = burst;
+        }
+
+        /**
+         * Returns -1 if the message must be dropped, otherwise the number of messages dropped
+         * since the last accepted one.
+         */
+        private synchronized int acquire(long now) {
+            if (windowStart == Long.MIN_VALUE || now - windowStart >= WINDOW_NANOS) {
+                windowStart = now;
+                used = 0;
+            }
+            if (used >= burst) {
+                suppressed++;
+                return -1;
+            }
+            used++;
+            int dropped = suppressed;
+            suppressed = 0;
+            return dropped;
+        }
+    }
+
+    private record Entry(Category category, Level level, Marker marker, String format, Object[] args,
+                         Throwable cause, int suppressed) {
+    }
+
+    private static final BlockingQueue<Entry> QUEUE = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private static final AtomicLong queueDrops = new AtomicLong();
+
+    static {
+        Thread writer = new Thread(ModLog::drain, "CustomDayNightMod-Log");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    private ModLog() {
+    }
+
+    public static void info(Category category, String format, Object... args) {
+        log(Level.INFO, category, null, null, format, args);
+    }
+
+    public static void warn(Category category, String format, Object... args) {
+        log(Level.WARN, category, null, null, format, args);
+    }
+
+    /** Logs a warning with the exception's stack trace. */
+    public static void warn(Category category, Throwable cause, String format, Object... args) {
+        log(Level.WARN, category, null, cause, format, args);
+    }
+
+    /**
+     * Logs a phase change. With {@code logPhaseChanges} enabled it is written at INFO; otherwise
+     * at DEBUG, so it is only visible when the operator turns on debug logging for the mod.
+     */
+    public static void phase(boolean enabled, String format, Object... args) {
+        Level level = enabled ? Level.INFO : Level.DEBUG;
+        if (!LOGGER.isEnabledForLevel(level)) {
+            return; // common case: nothing is queued or rate-limited
+        }
+        log(level, Category.PHASE, PHASE_MARKER, null, format, args);
+    }
+
+    /** Number of messages dropped because the writer thread fell behind. */
+    public static long getQueueDrops() {
+        return queueDrops.get();
+    }
+
+    private static void log(Level level, Category category, Marker marker, Throwable cause,
+                            String format, Object[] args) {
+        int suppressed = category.acquire(System.nanoTime());
+        if (suppressed < 0) {
+            return;
+        }
+        if (!QUEUE.offer(new Entry(category, level, marker, format, args, cause, suppressed))) {
+            queueDrops.incrementAndGet();
+        }
+    }
+
+    /**
+     * Writes everything still queued on the calling thread. Called when the server stops so the
+     * last messages are not lost with the daemon writer.
+     */
+    public static void flush() {
+        Entry entry;
+        while ((entry = QUEUE.poll()) != null) {
+            write(entry);
+        }
+    }
+
+    private static void drain() {
+        try {
+            while (true) {
+                write(QUEUE.take());
+            }
+        } catch (InterruptedException e) {
+            // daemon thread, only interrupted when the JVM exits
+        }
+    }
+
+    private static void write(Entry entry) {
+        var builder = LOGGER.atLevel(entry.level()).setMessage(entry.format());
+        if (entry.marker() != null) {
+            builder = builder.addMarker(entry.marker());
+        }
+        for (Object arg : entry.args()) {
+            builder = builder.addArgument(arg);
+        }
+        if (entry.cause() != null) {
+            builder = builder.setCause(entry.cause());
+        }
+        builder.log();
+        if (entry.suppressed() > 0) {
+            LOGGER.warn("event=log_suppressed category={} count={}", entry.category(), entry.suppressed());
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.github.mozartsghost1212.customdaynightmod;
+
+import com.github.mozartsghost1212.customdaynightmod.core.Phase;
+import com.github.mozartsghost1212.customdaynightmod.core.TimeAdvanceEngine;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Writes the mod's gauges and counters to a file in the Prometheus text format, for
+ * node_exporter's textfile collector.
+ * <p>
+ * Every {@code prometheus_interval} seconds the server thread copies the handful of values into a
+ * {@link Snapshot} (a few reads per driven world plus a pass over the {@link TickMetrics}
+ * histogram) and hands it to the configuration I/O thread (see {@link ConfigPersistence#execute}).
+ * That thread formats it into a reused buffer, writes a temporary file next to the target and
+ * renames it over the target, so the collector never reads a half-written file. If a write is
+ * still running when the next export is due, that export is skipped.
+ * </p>
+ * <p>
+ * The latency histogram uses power-of-two bucket bounds, where the counts taken from
+ * {@link TickMetrics} are exact. It is only filled while metrics sampling is on
+ * ({@code /customdaynight metrics on}).
+ * </p>
+ */
+final class PrometheusExporter {
+
+    private static final String PREFIX = "customdaynightmod_";
+    /** Handler latency bucket bounds in nanoseconds: 2^10 (about 1 µs) to 2^24 (about 17 ms). */
+    private static final long[] BUCKET_NANOS = new long[15];
+    private static final String[] BUCKET_LABELS = new String[BUCKET_NANOS.length];
+
+    static {
+        for (int i = 0; i < BUCKET_NANOS.length; i++) {
+            BUCKET_NANOS[i] = 1L << (10 + i);
+            BUCKET_LABELS[i] = formatSeconds(BUCKET_NANOS[i]);
+        }
+    }
+
+    /** Server tick of the last export; only used on the server thread. */
+    private static int lastExportTick = 0;
+    private static final AtomicBoolean WRITING = new AtomicBoolean();
+    /** Formatting buffer, only used on the I/O thread. */
+    private static final StringBuilder BUFFER = new StringBuilder(4096);
+
+    private PrometheusExporter() {
+    }
+
+    /**
+     * Takes a snapshot and queues a write when an export is due. Called once per server tick.
+     *
+     * @param cycles the worlds currently driven
+     */
+    static void tick(int serverTick, ModConfig config, WorldCycle[] cycles) {
+        if (config.prometheusFile().isEmpty()) {
+            return;
+        }
+        int elapsed = serverTick - lastExportTick;
+        if (elapsed >= 0 && elapsed < config.prometheusInterval() * 20) {
+            return;
+        }
+        lastExportTick = serverTick;
+        if (!WRITING.compareAndSet(false, true)) {
+            return; // the previous write has not finished yet
+        }
+        Snapshot snapshot = Snapshot.take(cycles);
+        Path path = Path.of(config.prometheusFile());
+        ConfigPersistence.execute(() -> {
+            try {
+                write(path, snapshot);
+            } catch (IOException e) {
+                ModLog.warn(ModLog.Category.IO, e, "event=prometheus_write_failed path={}", path);
+            } finally {
+                WRITING.set(false);
+            }
+        });
+    }
+
+    private static void write(Path path, Snapshot snapshot) throws IOException {
+        BUFFER.setLength(0);
+        format(BUFFER, snapshot);
+        byte[] content = BUFFER.toString().getBytes(StandardCharsets.UTF_8);
+
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.write(temp, content);
+        try {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /** Renders a snapshot in the Prometheus text exposition format. */
+    static void format(StringBuilder out, Snapshot snapshot) {
+        header(out, "time_of_day", "gauge", "Time of day in game ticks (0-23999).");
+        for (WorldSample world : snapshot.worlds) {
+            sample(out, "time_of_day", world.id, null, world.timeOfDay);
+        }
+        header(out, "phase", "gauge", "1 for the phase the world is in, 0 for the other.");
+        for (WorldSample world : snapshot.worlds) {
+            sample(out, "phase", world.id, "phase=\"day\"", world.phase == Phase.DAY ? 1 : 0);
+            sample(out, "phase", world.id, "phase=\"night\"", world.phase == Phase.NIGHT ? 1 : 0);
+        }
+        header(out, "day_length_ticks", "gauge", "Real-time length of today's day in server ticks.");
+        for (WorldSample world : snapshot.worlds) {
+            sample(out, "day_length_ticks", world.id, null, world.dayTicks);
+        }
+        header(out, "night_length_ticks", "gauge", "Real-time length of today's night in server ticks.");
+        for (WorldSample world : snapshot.worlds) {
+            sample(out, "night_length_ticks", world.id, null, world.nightTicks);
+        }
+        header(out, "advance_rate", "gauge", "Game ticks advanced per server tick at the current time of day.");
+        for (WorldSample world : snapshot.worlds) {
+            out.append(PREFIX).append("advance_rate{world=\"").append(world.id).append("\"} ")
+                    .append(world.rate).append('\n');
+        }
+
+        header(out, "server_tps", "gauge", "Measured server ticks per second.");
+        out.append(PREFIX).append("server_tps ").append(snapshot.tps).append('\n');
+        counter(out, "phase_transitions_total", "Day/night transitions in all driven worlds.", snapshot.phaseTransitions);
+        counter(out, "config_reloads_total", "Configuration reloads from file.", snapshot.configReloads);
+        counter(out, "config_saves_total", "Configuration writes to file.", snapshot.configSaves);
+
+        header(out, "tick_handler_seconds", "histogram", "Cost of the tick handler while metrics sampling is on.");
+        for (int i = 0; i < BUCKET_LABELS.length; i++) {
+            out.append(PREFIX).append("tick_handler_seconds_bucket{le=\"").append(BUCKET_LABELS[i]).append("\"} ")
+                    .append(snapshot.bucketCounts[i]).append('\n');
+        }
+        out.append(PREFIX).append("tick_handler_seconds_bucket{le=\"+Inf\"} ").append(snapshot.samples).append('\n');
+        out.append(PREFIX).append("tick_handler_seconds_sum ").append(formatSeconds(snapshot.totalNanos)).append('\n');
+        out.append(PREFIX).append("tick_handler_seconds_count ").append(snapshot.samples).append('\n');
+    }
+
+    private static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(PREFIX).append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(PREFIX).append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, String world, String label, long value) {
+        out.append(PREFIX).append(name).append("{world=\"").append(world).append('"');
+        if (label != null) {
+            out.append(',').append(label);
+        }
+        out.append("} ").append(value).append('\n');
+    }
+
+    private static void counter(StringBuilder out, String name, String help, long value) {
+        header(out, name, "counter", help);
+        out.append(PREFIX).append(name).append(' ').append(value).append('\n');
+    }
+
+    private static String formatSeconds(long nanos) {
+        return Double.toString(nanos / 1e9);
+    }
+
+    /** Values copied on the server thread for one export. */
+    record Snapshot(WorldSample[] worlds, double tps, long phaseTransitions, long configReloads, long configSaves,
+                    long[] bucketCounts, long samples, long totalNanos) {
+
+        static Snapshot take(WorldCycle[] cycles) {
+            WorldSample[] worlds = new WorldSample[cycles.length];
+            for (int i = 0; i < cycles.length; i++) {
+                WorldCycle cycle = cycles[i];
+                long timeOfDay = cycle.getWorld().getTimeOfDay();
+                worlds[i] = new WorldSample(cycle.getDimensionId(),
+                        Math.floorMod(timeOfDay, TimeAdvanceEngine.TICKS_PER_DAY),
+                        Phase.of(timeOfDay), cycle.getDayTicks(), cycle.getNightTicks(), cycle.getEffectiveRate());
+            }
+            long[] bucketCounts = new long[BUCKET_NANOS.length];
+            for (int i = 0; i < BUCKET_NANOS.length; i++) {
+                bucketCounts[i] = TickMetrics.countAtMost(BUCKET_NANOS[i]);
+            }
+            return new Snapshot(worlds, CustomDayNightMod.lagCompensator().getTps(),
+                    TickMetrics.getPhaseTransitions(), TickMetrics.getConfigReloads(), ConfigPersistence.getSaveCount(),
+                    bucketCounts, TickMetrics.getSamples(), TickMetrics.getTotalNanos());
+        }
+    }
+
+    /** Values of one driven world. */
+    record WorldSample(String id, long timeOfDay, Phase phase, int dayTicks, int nightTicks, double rate) {
+    }
+}
@@ -0,0 +1,27 @@
+package com.github.mozartsghost1212.customdaynightmod;
+
+import com.github.mozartsghost1212.customdaynightmod.core.WorldClock;
+
+import net.minecraft.server.world.ServerWorld;
+
+/**
+ * {@link WorldClock} backed by a loaded server world.
+ */
+final class ServerWorldClock implements WorldClock {
+
+    private final ServerWorld world;
+
+    ServerWorldClock(ServerWorld world) {
+        this.world = world;
+    }
+
+    @Override
+    public long getTimeOfDay() {
+        return world.getTimeOfDay();
+    }
+
+    @Override
+    public void setTimeOfDay(long timeOfDay) {
+        world.setTimeOfDay(timeOfDay);
+    }
+}
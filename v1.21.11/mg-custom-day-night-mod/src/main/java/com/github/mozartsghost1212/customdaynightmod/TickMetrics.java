@@ -0,0 +1,178 @@
+package com.github.mozartsghost1212.customdaynightmod;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Low-overhead runtime metrics for the tick handler.
+ * <p>
+ * When sampling is enabled, the handler's cost is measured with {@link System#nanoTime()}
+ * and recorded in a fixed-size log-linear histogram: each power of two is split into
+ * {@link #SUB_BUCKETS} linear sub-buckets, so recording is a few bit operations and an array
+ * increment, with no allocation. Buckets include their upper bound and every power of two is
+ * one, so a count up to a power of two is exact. Percentiles are reported as the upper bound of the bucket
+ * they fall in (within 25% of the true value). When sampling is off the handler only pays for
+ * one boolean check. The counters (time advances, phase transitions, config reloads) are kept
+ * whether sampling is on or not.
+ * </p>
+ * <p>
+ * All state is only written on the server thread, but may be read from any thread (JMX reads
+ * it directly, without waiting for the server). The fields are volatile and the histogram is an
+ * {@link AtomicLongArray}, so a reader never sees a torn value; it may see a tick that is
+ * half recorded, which a percentile tolerates. Because there is a single writer, the plain
+ * read-modify-write of a volatile counter is safe.
+ * </p>
+ */
+public final class TickMetrics {
+
+    private static final int SUB_BUCKET_BITS = 2;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS + SUB_BUCKETS;
+
+    /** Written on the server thread only (commands directly, JMX through {@code server.submit}). */
+    private static volatile boolean enabled = false;
+
+    private static final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+    private static volatile long samples = 0;
+    private static volatile long maxNanos = 0;
+    private static volatile long totalNanos = 0;
+
+    private static volatile long timeAdvances = 0;
+    private static volatile long phaseTransitions = 0;
+    private static volatile long configReloads = 0;
+
+    private TickMetrics() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Turns sampling of the tick handler on or off. Counters are kept. */
+    public static void setEnabled(boolean value) {
+        enabled = value;
+    }
+
+    /** Clears the histogram and all counters. */
+    public static void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            histogram.set(i, 0L);
+        }
+        samples = 0;
+        maxNanos = 0;
+        totalNanos = 0;
+        timeAdvances = 0;
+        phaseTransitions = 0;
+        configReloads = 0;
+    }
+
+    /** Records the cost of one run of the tick handler while sampling is on. */
+    public static void recordTick(long nanos) {
+        int bucket = bucketOf(nanos);
+        histogram.lazySet(bucket, histogram.get(bucket) + 1);
+        samples++;
+        totalNanos += nanos;
+        if (nanos > maxNanos) {
+            maxNanos = nanos;
+        }
+    }
+
+    /** Counts the worlds whose time the tick handler advanced; called on every tick. */
+    public static void recordAdvances(int advances) {
+        timeAdvances += advances;
+    }
+
+    public static void recordPhaseTransition() {
+        phaseTransitions++;
+    }
+
+    public static void recordConfigReload() {
+        configReloads++;
+    }
+
+    /**
+     * Returns the histogram bucket for a non-negative value. The layout is applied to
+     * {@code value - 1}, which shifts every bucket up by one so that it ends on a power of two
+     * instead of starting on it; 0 and 1 share the first bucket.
+     */
+    static int bucketOf(long value) {
+        long shifted = value - 1;
+        if (shifted < SUB_BUCKETS) {
+            return (int) Math.max(0, shifted);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(shifted);
+        int sub = (int) (shifted >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /** Returns the largest value that falls into a bucket. */
+    static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket + 1;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int sub = bucket % SUB_BUCKETS;
+        long base = 1L << exponent;
+        long width = base >>> SUB_BUCKET_BITS;
+        long upper = base + (sub + 1) * width;
+        return upper < 0 ? Long.MAX_VALUE : upper;
+    }
+
+    /**
+     * Returns the handler cost at a quantile (0.0–1.0) in nanoseconds, or 0 without samples.
+     */
+    public static long percentile(double quantile) {
+        long total = samples;
+        long max = maxNanos;
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(quantile * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            long count = histogram.get(i);
+            seen += count;
+            if (seen >= rank && count > 0) {
+                return Math.min(upperBoundOf(i), max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Returns the number of samples at or below a value in nanoseconds, as a Prometheus
+     * {@code le} bucket counts them. The count is exact when the value ends a bucket, which
+     * every power of two does.
+     */
+    public static long countAtMost(long nanos) {
+        long count = 0;
+        for (int i = 0, end = bucketOf(nanos); i <= end; i++) {
+            count += histogram.get(i);
+        }
+        return count;
+    }
+
+    public static long getSamples() {
+        return samples;
+    }
+
+    public static long getMaxNanos() {
+        return maxNanos;
+    }
+
+    /** Sum of all sampled handler costs in nanoseconds. */
+    public static long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public static long getTimeAdvances() {
+        return timeAdvances;
+    }
+
+    public static long getPhaseTransitions() {
+        return phaseTransitions;
+    }
+
+    public static long getConfigReloads() {
+        return configReloads;
+    }
+}
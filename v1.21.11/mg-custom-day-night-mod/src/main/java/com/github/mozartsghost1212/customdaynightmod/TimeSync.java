@@ -0,0 +1,98 @@
+package com.github.mozartsghost1212.customdaynightmod;
+
+import net.minecraft.network.packet.s2c.play.WorldTimeUpdateS2CPacket;
+import net.minecraft.server.world.ServerWorld;
+
+/**
+ * Drift-based time synchronisation for one world.
+ * <p>
+ * Between time updates, vanilla clients advance their local time of day by one tick per
+ * tick (or not at all when the daylight cycle is off). When this mod runs the clock at any
+ * other rate, the client's prediction drifts away from the server's time until the next
+ * vanilla update, which arrives every {@link #VANILLA_SYNC_INTERVAL} ticks, and the sun visibly
+ * snaps. This class tracks what clients currently believe and sends an extra
+ * {@link WorldTimeUpdateS2CPacket} only when the predicted drift reaches the configured
+ * threshold. The packet is built once and broadcast to every player in the dimension.
+ * </p>
+ * <p>
+ * Counters are global and only touched on the server thread.
+ * </p>
+ */
+public final class TimeSync {
+
+    /** Vanilla sends time updates to all players every 20 ticks. */
+    public static final int VANILLA_SYNC_INTERVAL = 20;
+
+    private static long broadcastsSent = 0;
+    private static long packetsSent = 0;
+    private static long packetsAvoided = 0;
+
+    private final ServerWorld world;
+    /** Time of day the clients were last told, and the server tick it was sent on. */
+    private long syncedTimeOfDay;
+    private int syncedAtTick;
+    private boolean synced = false;
+
+    public TimeSync(ServerWorld world) {
+        this.world = world;
+    }
+
+    /**
+     * Called after the engine has written this tick's time of day.
+     *
+     * @param timeOfDay      the time of day just written
+     * @param serverTick     the server's tick counter at the start of this tick
+     * @param vanillaTicking whether clients predict time advancing by one per tick
+     * @param threshold      drift in game ticks that triggers an update; 0 disables extra updates
+     */
+    public void afterAdvance(long timeOfDay, int serverTick, boolean vanillaTicking, int threshold) {
+        // Vanilla's periodic update goes out at the end of this tick; treat it as our baseline.
+        if ((serverTick + 1) % VANILLA_SYNC_INTERVAL == 0 || !synced) {
+            markSynced(timeOfDay, serverTick);
+            return;
+        }
+
+        long predicted = syncedTimeOfDay + (vanillaTicking ? serverTick - syncedAtTick : 0);
+        long drift = Math.abs(timeOfDay - predicted);
+        if (drift == 0 || threshold <= 0) {
+            return;
+        }
+        if (drift < threshold) {
+            packetsAvoided += world.getPlayers().size();
+            return;
+        }
+
+        int recipients = world.getPlayers().size();
+        if (recipients > 0) {
+            WorldTimeUpdateS2CPacket packet = new WorldTimeUpdateS2CPacket(world.getTime(), timeOfDay, vanillaTicking);
+            world.getServer().getPlayerManager().sendToDimension(packet, world.getRegistryKey());
+            broadcastsSent++;
+            packetsSent += recipients;
+        }
+        markSynced(timeOfDay, serverTick);
+    }
+
+    private void markSynced(long timeOfDay, int serverTick) {
+        syncedTimeOfDay = timeOfDay;
+        syncedAtTick = serverTick;
+        synced = true;
+    }
+
+    /** Number of extra per-world broadcasts sent. */
+    public static long getBroadcastsSent() {
+        return broadcastsSent;
+    }
+
+    /** Number of extra time packets delivered (broadcasts times recipients). */
+    public static long getPacketsSent() {
+        return packetsSent;
+    }
+
+    /**
+     * Number of per-player packets a send-every-tick approach would have sent while the
+     * drift stayed below the threshold.
+     */
+    public static long getPacketsAvoided() {
+        return packetsAvoided;
+    }
+}
@@ -0,0 +1,230 @@
+package com.github.mozartsghost1212.customdaynightmod;
+
+import com.github.mozartsghost1212.customdaynightmod.api.PhaseChangeCallback;
+import com.github.mozartsghost1212.customdaynightmod.core.CycleDriver;
+import com.github.mozartsghost1212.customdaynightmod.core.DayPlan;
+import com.github.mozartsghost1212.customdaynightmod.core.EngineState;
+import com.github.mozartsghost1212.customdaynightmod.core.Phase;
+import com.github.mozartsghost1212.customdaynightmod.core.TickTrace;
+import com.github.mozartsghost1212.customdaynightmod.core.TimeAdvanceEngine;
+import com.github.mozartsghost1212.customdaynightmod.jfr.PhaseTransitionEvent;
+
+import jdk.jfr.EventType;
+import net.minecraft.server.world.ServerWorld;
+
+/**
+ * Drives the day/night cycle of one loaded world.
+ * <p>
+ * A thin adapter between the game and the headless {@link CycleDriver}: it holds a cached
+ * reference to the world, the driver advancing its clock and the {@link CycleSchedule} it
+ * currently follows, and adds what needs the server (metrics, JFR events, the
+ * {@link PhaseChangeCallback}, logging and client time sync). Instances are created and
+ * reconfigured by {@link CustomDayNightMod} only when the configuration or the set of loaded
+ * worlds changes, so a tick is a direct call on an already resolved world.
+ * </p>
+ */
+public final class WorldCycle {
+
+    /** Checked before creating a {@link PhaseTransitionEvent}, so none is allocated while it is not recorded. */
+    private static final EventType PHASE_TRANSITION_EVENT = EventType.getEventType(PhaseTransitionEvent.class);
+
+    private final ServerWorld world;
+    private final String dimensionId;
+    private final CycleDriver driver;
+    private final TimeSync timeSync;
+    private CycleSchedule schedule = CycleSchedule.VANILLA;
+    /** Server tick on which the current phase was entered or first seen, or -1 before the first tick. */
+    private volatile int phaseStartTick = -1;
+    /** Phase and rate as of the last tick, published for readers off the server thread (JMX). */
+    private volatile Phase publishedPhase = null;
+    private volatile double publishedRate = 0.0;
+    /** Trace this world's slot was looked up in, and the slot. */
+    private TickTrace tracedIn = null;
+    private int traceSlot;
+
+    public WorldCycle(ServerWorld world, String dimensionId) {
+        this.world = world;
+        this.dimensionId = dimensionId;
+        this.driver = new CycleDriver(new ServerWorldClock(world));
+        this.timeSync = new TimeSync(world);
+    }
+
+    /** Switches to a new schedule; the engine keeps its carried fraction. */
+    public void configure(CycleSchedule schedule) {
+        this.schedule = schedule;
+        driver.configure(schedule.dayStep(), schedule.nightStep(), schedule.curve());
+        driver.setCalendar(schedule.calendar());
+        publish();
+    }
+
+    /**
+     * Advances this world by one server tick, reports a phase change to listeners (and logs it
+     * if requested) and sends a time update to clients if their prediction has drifted too far.
+     *
+     * @param config     the configuration snapshot loaded for this tick
+     * @param serverTick the server's tick counter
+     * @param tickScale  16.16 fixed-point scale of this tick, see
+     *                   {@link com.github.mozartsghost1212.customdaynightmod.core.LagCompensator}
+     * @param trace      ring the tick is recorded in, or null when tracing is off
+     */
+    public void tick(ModConfig config, int serverTick, long tickScale, TickTrace trace) {
+        Phase previousPhase = driver.getPhase();
+        Phase entered = driver.tick(tickScale);
+
+        if (entered != null || phaseStartTick < 0) {
+            phaseStartTick = serverTick;
+        }
+        if (entered != null) {
+            if (previousPhase != null) {
+                TickMetrics.recordPhaseTransition();
+                emitTransitionEvent(previousPhase, entered, driver.getObservedTime());
+                notifyListeners(previousPhase, entered, config.wallClockMode());
+            }
+            logPhaseChange(entered, config.logPhaseChanges());
+        }
+
+        if (trace != null) {
+            record(trace, config, serverTick, tickScale);
+        }
+
+        timeSync.afterAdvance(driver.getWrittenTime(), serverTick, driver.getEngine().isVanillaTicking(),
+                config.timeSyncThreshold());
+        publish();
+    }
+
+    private void publish() {
+        Phase phase = driver.getPhase();
+        publishedRate = phase == null ? 0.0 : rateAt(phase, driver.getWrittenTime());
+        publishedPhase = phase;
+    }
+
+    private void record(TickTrace trace, ModConfig config, int serverTick, long tickScale) {
+        if (trace != tracedIn) {
+            tracedIn = trace;
+            traceSlot = trace.worldSlot(dimensionId);
+        }
+        TimeAdvanceEngine engine = driver.getEngine();
+        trace.record(traceSlot, serverTick, config.version(), driver.getObservedTime(), driver.getWrittenTime(),
+                engine.getLastStep(), tickScale, driver.getPhase(),
+                engine.isVanillaTicking() ? TickTrace.FLAG_VANILLA_TICKING : 0);
+    }
+
+    private void emitTransitionEvent(Phase oldPhase, Phase newPhase, long timeOfDay) {
+        if (!PHASE_TRANSITION_EVENT.isEnabled()) {
+            return;
+        }
+        PhaseTransitionEvent event = new PhaseTransitionEvent();
+        if (event.shouldCommit()) {
+            event.world = dimensionId;
+            event.oldPhase = oldPhase.name();
+            event.newPhase = newPhase.name();
+            event.timeOfDay = timeOfDay;
+            event.effectiveRate = rateAt(newPhase, timeOfDay);
+            event.commit();
+        }
+    }
+
+    /**
+     * Invokes {@link PhaseChangeCallback#EVENT} with the lengths this world follows now. The
+     * expected duration assumes the current TPS holds, unless wall-clock mode keeps phases at
+     * real time.
+     */
+    private void notifyListeners(Phase oldPhase, Phase newPhase, boolean wallClock) {
+        int dayTicks = getDayTicks();
+        int nightTicks = getNightTicks();
+        int phaseTicks = newPhase == Phase.DAY ? dayTicks : nightTicks;
+        double tps = wallClock ? 20.0 : CustomDayNightMod.lagCompensator().getTps();
+        long expectedMillis = Math.round(phaseTicks * 1000.0 / tps);
+        PhaseChangeCallback.EVENT.invoker().onPhaseChange(world, oldPhase, newPhase, dayTicks, nightTicks,
+                expectedMillis);
+    }
+
+    /** Game ticks per server tick at a time of day, before any wall-clock compensation. */
+    private double rateAt(Phase phase, long timeOfDay) {
+        TimeAdvanceEngine engine = driver.getEngine();
+        long step = schedule.curve() != null
+                ? schedule.curve().stepAt(Math.floorMod(timeOfDay, TimeAdvanceEngine.TICKS_PER_DAY))
+                : phase == Phase.DAY ? engine.getDayStep() : engine.getNightStep();
+        return (double) step / TimeAdvanceEngine.ONE;
+    }
+
+    /**
+     * Logs at INFO when phase logging is enabled, otherwise at DEBUG (see {@link ModLog#phase}).
+     */
+    private void logPhaseChange(Phase phase, boolean enabled) {
+        if (schedule.curve() != null) {
+            ModLog.phase(enabled, "event=phase_change world={} phase={} curve={}",
+                    dimensionId, phase, schedule.curve().name());
+            return;
+        }
+        DayPlan plan = driver.getPlan();
+        if (plan != null) {
+            ModLog.phase(enabled, "event=phase_change world={} phase={} season={} dayOfYear={} length={}",
+                    dimensionId, phase, plan.season(), plan.dayOfYear(),
+                    phase == Phase.DAY ? plan.dayTicks() : plan.nightTicks());
+            return;
+        }
+        boolean day = phase == Phase.DAY;
+        int absoluteLength = day ? schedule.absoluteDayLength() : schedule.absoluteNightLength();
+        if (absoluteLength > 0) {
+            ModLog.phase(enabled, "event=phase_change world={} phase={} absoluteLength={}",
+                    dimensionId, phase, absoluteLength);
+        } else {
+            ModLog.phase(enabled, "event=phase_change world={} phase={} multiplier={}",
+                    dimensionId, phase, day ? schedule.dayMultiplier() : schedule.nightMultiplier());
+        }
+    }
+
+    /** Engine state to save with the world, or null before the first tick. */
+    public EngineState snapshot() {
+        return driver.snapshot();
+    }
+
+    /** Continues from state saved by a previous server run; see {@link CycleDriver#restore}. */
+    public void restore(EngineState state) {
+        driver.restore(state);
+        publish();
+    }
+
+    /** Phase observed on the last tick, or null before the first tick. Safe on any thread. */
+    public Phase getPhase() {
+        return publishedPhase;
+    }
+
+    /**
+     * Game ticks per server tick at the time written on the last tick, or 0 before the first
+     * tick. Safe on any thread.
+     */
+    public double getEffectiveRate() {
+        return publishedRate;
+    }
+
+    /** Real-time length of the day this world follows now: today's plan when the calendar is on. */
+    public int getDayTicks() {
+        DayPlan plan = driver.getPlan();
+        return plan != null ? plan.dayTicks() : schedule.effectiveDayTicks();
+    }
+
+    /** Real-time length of the night this world follows now: today's plan when the calendar is on. */
+    public int getNightTicks() {
+        DayPlan plan = driver.getPlan();
+        return plan != null ? plan.nightTicks() : schedule.effectiveNightTicks();
+    }
+
+    /** Server ticks spent in the current phase, or 0 before the first tick. Safe on any thread. */
+    public int getTicksInPhase(int serverTick) {
+        return phaseStartTick < 0 ? 0 : serverTick - phaseStartTick;
+    }
+
+    public ServerWorld getWorld() {
+        return world;
+    }
+
+    public String getDimensionId() {
+        return dimensionId;
+    }
+
+    public CycleSchedule getSchedule() {
+        return schedule;
+    }
+}
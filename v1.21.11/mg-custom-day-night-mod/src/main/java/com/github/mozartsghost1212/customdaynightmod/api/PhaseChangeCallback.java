@@ -0,0 +1,49 @@
+package com.github.mozartsghost1212.customdaynightmod.api;
+
+import com.github.mozartsghost1212.customdaynightmod.core.Phase;
+
+import net.fabricmc.fabric.api.event.Event;
+import net.fabricmc.fabric.api.event.EventFactory;
+import net.minecraft.server.world.ServerWorld;
+
+/**
+ * Called when a world driven by the mod switches between day and night, for mods that would
+ * otherwise poll {@code getTimeOfDay()} every tick to find dusk and dawn.
+ * <p>
+ * The mod invokes it on the server thread, once per transition, right after the tick that crossed
+ * the boundary. It is not invoked for the phase a world starts in, nor for worlds the mod does not
+ * drive. The lengths are the ones the world follows at that moment: with a speed curve, the
+ * curve's; with the seasonal calendar, the current day's; otherwise the configured multipliers
+ * or absolute lengths.
+ * </p>
+ * <pre>
+ * PhaseChangeCallback.EVENT.register((world, oldPhase, newPhase, dayTicks, nightTicks, expectedMillis) -&gt; {
+ *     if (newPhase == Phase.NIGHT) {
+ *         // dusk
+ *     }
+ * });
+ * </pre>
+ */
+@FunctionalInterface
+public interface PhaseChangeCallback {
+
+    Event<PhaseChangeCallback> EVENT = EventFactory.createArrayBacked(PhaseChangeCallback.class,
+            listeners -> (world, oldPhase, newPhase, dayTicks, nightTicks, expectedMillis) -> {
+                for (PhaseChangeCallback listener : listeners) {
+                    listener.onPhaseChange(world, oldPhase, newPhase, dayTicks, nightTicks, expectedMillis);
+                }
+            });
+
+    /**
+     * @param world          the world whose phase changed
+     * @param oldPhase       the phase that ended
+     * @param newPhase       the phase that began
+     * @param dayTicks       effective length of the day in server ticks
+     * @param nightTicks     effective length of the night in server ticks
+     * @param expectedMillis how long the new phase is expected to last in real time, from its full
+     *                       length and the server's current tick rate (or 50 ms per tick in
+     *                       wall-clock mode, which compensates for lag)
+     */
+    void onPhaseChange(ServerWorld world, Phase oldPhase, Phase newPhase, int dayTicks, int nightTicks,
+                       long expectedMillis);
+}
@@ -0,0 +1,129 @@
+package com.github.mozartsghost1212.customdaynightmod.core;
+
+/**
+ * Advances one {@link WorldClock} with a {@link TimeAdvanceEngine} and tracks the phase it is in.
+ * <p>
+ * This is the whole per-tick algorithm without any Minecraft types: the game drives one driver
+ * per world through a thin adapter, and {@link CycleSimulator} drives one against a
+ * {@link SimulatedClock}.
+ * </p>
+ * <p>
+ * With a {@link SeasonalCalendar} set, the driver looks up the current day's {@link DayPlan}
+ * whenever the phase changes and installs its steps. Between transitions a tick costs exactly
+ * what it costs with fixed steps.
+ * </p>
+ */
+public final class CycleDriver {
+
+    private final WorldClock clock;
+    private final TimeAdvanceEngine engine = new TimeAdvanceEngine();
+    private Phase phase = null;
+    private DayPlanCache calendar = null;
+    private DayPlan plan = null;
+    private long observedTime;
+    private long writtenTime;
+
+    public CycleDriver(WorldClock clock) {
+        this.clock = clock;
+    }
+
+    /** Installs new fixed-point steps; see {@link TimeAdvanceEngine#configure(long, long)}. */
+    public void configure(long dayStep, long nightStep) {
+        engine.configure(dayStep, nightStep);
+    }
+
+    /** Installs new steps and an optional speed curve; see {@link TimeAdvanceEngine#configure(long, long, SpeedCurve)}. */
+    public void configure(long dayStep, long nightStep, SpeedCurve curve) {
+        engine.configure(dayStep, nightStep, curve);
+    }
+
+    /**
+     * Follows a seasonal calendar, or stops following one when null. The calendar's steps replace
+     * the configured ones from the next tick on.
+     */
+    public void setCalendar(SeasonalCalendar calendar) {
+        if (calendar == null) {
+            this.calendar = null;
+        } else if (this.calendar == null || this.calendar.getCalendar() != calendar) {
+            this.calendar = new DayPlanCache(calendar);
+        }
+        this.plan = null;
+    }
+
+    /**
+     * Advances the clock by one server tick.
+     *
+     * @return the phase the clock was found in if it differs from the previous tick's (including
+     *         the very first tick), otherwise null
+     */
+    public Phase tick() {
+        return tick(LagCompensator.SCALE_ONE);
+    }
+
+    /**
+     * Advances the clock by one server tick scaled by the real time it stood for.
+     *
+     * @param tickScale 16.16 fixed-point tick scale, see {@link LagCompensator}
+     * @return the phase entered, as for {@link #tick()}
+     */
+    public Phase tick(long tickScale) {
+        observedTime = clock.getTimeOfDay();
+        Phase current = Phase.of(observedTime);
+        Phase entered = current != phase ? current : null;
+        phase = current;
+
+        if (calendar != null && (entered != null || plan == null)) {
+            long day = Math.floorDiv(observedTime, TimeAdvanceEngine.TICKS_PER_DAY);
+            if (plan == null || plan.day() != day) {
+                plan = calendar.get(day);
+                engine.configure(plan.dayStep(), plan.nightStep());
+            }
+        }
+
+        writtenTime = engine.tick(observedTime, tickScale);
+        clock.setTimeOfDay(writtenTime);
+        return entered;
+    }
+
+    /** Captures the state to save with the world, or null before the first tick. */
+    public EngineState snapshot() {
+        if (phase == null || !engine.hasWritten()) {
+            return null;
+        }
+        return new EngineState(phase, engine.getLastWritten(), engine.getFraction());
+    }
+
+    /**
+     * Continues from a saved state. The restored phase is not reported as entered again, and
+     * the carried fraction is kept if the clock still reads the time that was saved.
+     */
+    public void restore(EngineState state) {
+        phase = state.phase();
+        plan = null;
+        engine.restore(state.lastWritten(), state.fraction());
+    }
+
+    /** Phase observed on the last tick, or null before the first tick. */
+    public Phase getPhase() {
+        return phase;
+    }
+
+    /** The calendar plan currently followed, or null without a calendar. */
+    public DayPlan getPlan() {
+        return plan;
+    }
+
+    /** Time of day read from the clock on the last tick. */
+    public long getObservedTime() {
+        return observedTime;
+    }
+
+    /** Time of day written to the clock on the last tick. */
+    public long getWrittenTime() {
+        return writtenTime;
+    }
+
+    public TimeAdvanceEngine getEngine() {
+        return engine;
+    }
+}
@@ -0,0 +1,183 @@
+package com.github.mozartsghost1212.customdaynightmod.core;
+
+import java.util.Arrays;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Runs the day/night engine headless, against a {@link SimulatedClock}, and measures what a
+ * player would see: how many server ticks each phase actually lasts, how far that is from the
+ * configured length, and on which ticks the transitions happen.
+ * <p>
+ * The simulated tick is the same {@link CycleDriver#tick()} the server runs, followed by
+ * vanilla's own +1, so results match the game. Without a world the loop runs millions of ticks
+ * per second, which makes it usable to validate schedules in CI:
+ * </p>
+ * <pre>
+ * ./gradlew simulate --args="0.75 1.75 0 0 100"
+ * </pre>
+ * <p>
+ * The arguments are day multiplier, night multiplier, absolute day length, absolute night length
+ * (0 = use the multiplier), or {@code curve "<keyframes>"} for a {@link SpeedCurve}, optionally
+ * followed by the number of full cycles (default 10) and the accepted drift per phase in ticks
+ * (default 1). The exit status is 1 if any phase drifts further than that. Values are used as
+ * given; the bounds enforced by the mod's configuration are not applied.
+ * </p>
+ */
+public final class CycleSimulator {
+
+    /** Number of transition ticks kept in a report. */
+    public static final int MAX_RECORDED_TRANSITIONS = 1024;
+
+    private final long dayStep;
+    private final long nightStep;
+    private final SpeedCurve curve;
+    private final int expectedDayTicks;
+    private final int expectedNightTicks;
+
+    /**
+     * @param dayStep            fixed-point day step, see {@link TimeAdvanceEngine#stepFor}
+     * @param nightStep          fixed-point night step
+     * @param expectedDayTicks   configured day length in server ticks
+     * @param expectedNightTicks configured night length in server ticks
+     */
+    public CycleSimulator(long dayStep, long nightStep, int expectedDayTicks, int expectedNightTicks) {
+        this(dayStep, nightStep, null, expectedDayTicks, expectedNightTicks);
+    }
+
+    private CycleSimulator(long dayStep, long nightStep, SpeedCurve curve, int expectedDayTicks, int expectedNightTicks) {
+        this.dayStep = dayStep;
+        this.nightStep = nightStep;
+        this.curve = curve;
+        this.expectedDayTicks = expectedDayTicks;
+        this.expectedNightTicks = expectedNightTicks;
+    }
+
+    /** Creates a simulator for a speed curve, expecting the lengths the curve reports. */
+    public static CycleSimulator forCurve(SpeedCurve curve) {
+        return new CycleSimulator(TimeAdvanceEngine.ONE, TimeAdvanceEngine.ONE, curve,
+                curve.effectiveDayTicks(), curve.effectiveNightTicks());
+    }
+
+    /** Creates a simulator for a schedule given the way it is configured. */
+    public static CycleSimulator forSchedule(float dayMultiplier, float nightMultiplier,
+                                             int absoluteDayLength, int absoluteNightLength) {
+        return new CycleSimulator(
+                TimeAdvanceEngine.stepFor(absoluteDayLength, dayMultiplier),
+                TimeAdvanceEngine.stepFor(absoluteNightLength, nightMultiplier),
+                TimeAdvanceEngine.effectiveTicks(absoluteDayLength, dayMultiplier),
+                TimeAdvanceEngine.effectiveTicks(absoluteNightLength, nightMultiplier));
+    }
+
+    /** Number of server ticks a full configured cycle takes. */
+    public long cycleTicks() {
+        return (long) expectedDayTicks + expectedNightTicks;
+    }
+
+    /**
+     * Simulates a number of server ticks, starting at the beginning of a day.
+     */
+    public SimulationReport run(long serverTicks) {
+        return run(serverTicks, tick -> LagCompensator.SCALE_ONE);
+    }
+
+    /**
+     * Simulates a number of server ticks with a tick scale per tick, as wall-clock mode applies
+     * it, e.g. to check how stalls of a given length are caught up on. Phase lengths are still
+     * counted in server ticks, so scaled ticks show up as drift.
+     *
+     * @param tickScale maps a server tick to its 16.16 fixed-point scale, see {@link LagCompensator}
+     */
+    public SimulationReport run(long serverTicks, LongUnaryOperator tickScale) {
+        SimulatedClock clock = new SimulatedClock(0L);
+        CycleDriver driver = new CycleDriver(clock);
+        driver.configure(dayStep, nightStep, curve);
+
+        Stats day = new Stats(expectedDayTicks);
+        Stats night = new Stats(expectedNightTicks);
+        long[] transitionTicks = new long[MAX_RECORDED_TRANSITIONS];
+        long transitions = 0;
+
+        // Phases are measured on the time the engine writes, which is what clients are sent.
+        Phase phase = Phase.DAY;
+        long phaseStart = -1; // time 0 counts as written before the first tick
+
+        for (long tick = 0; tick < serverTicks; tick++) {
+            driver.tick(tickScale.applyAsLong(tick));
+            Phase written = Phase.of(driver.getWrittenTime());
+            clock.vanillaTick();
+            if (written == phase) {
+                continue;
+            }
+            (phase == Phase.DAY ? day : night).add(tick - phaseStart);
+            if (transitions < MAX_RECORDED_TRANSITIONS) {
+                transitionTicks[(int) transitions] = tick;
+            }
+            transitions++;
+            phase = written;
+            phaseStart = tick;
+        }
+
+        return new SimulationReport(serverTicks, day.toStats(), night.toStats(), transitions,
+                Arrays.copyOf(transitionTicks, (int) Math.min(transitions, MAX_RECORDED_TRANSITIONS)));
+    }
+
+    /** Running statistics for one phase. */
+    private static final class Stats {
+        private final int expected;
+        private long count = 0;
+        private long min = Long.MAX_VALUE;
+        private long max = 0;
+        private long sum = 0;
+        private long maxDrift = 0;
+        private long cumulativeDrift = 0;
+
+        Stats(int expected) {
+            this.expected = expected;
+        }
+
+        void add(long length) {
+            count++;
+            min = Math.min(min, length);
+            max = Math.max(max, length);
+            sum += length;
+            long drift = length - expected;
+            maxDrift = Math.max(maxDrift, Math.abs(drift));
+            cumulativeDrift += drift;
+        }
+
+        SimulationReport.PhaseStats toStats() {
+            return new SimulationReport.PhaseStats(expected, count, count == 0 ? 0 : min, max,
+                    count == 0 ? 0.0 : (double) sum / count, maxDrift, cumulativeDrift);
+        }
+    }
+
+    public static void main(String[] args) {
+        boolean curve = args.length >= 2 && args[0].equals("curve");
+        if (!curve && args.length < 4) {
+            System.err.println("Usage: CycleSimulator <dayMultiplier> <nightMultiplier> <absoluteDayLength>"
+                    + " <absoluteNightLength> [cycles] [maxDrift]");
+            System.err.println("       CycleSimulator curve <time:rate,...> [cycles] [maxDrift]");
+            System.exit(2);
+        }
+        CycleSimulator simulator = curve
+                ? forCurve(SpeedCurve.parse("simulated", args[1], Float.MIN_NORMAL, Float.MAX_VALUE))
+                : forSchedule(Float.parseFloat(args[0]), Float.parseFloat(args[1]),
+                        Integer.parseInt(args[2]), Integer.parseInt(args[3]));
+        int rest = curve ? 2 : 4;
+        long cycles = args.length > rest ? Long.parseLong(args[rest]) : 10;
+        long tolerance = args.length > rest + 1 ? Long.parseLong(args[rest + 1]) : 1;
+
+        long ticks = cycles * simulator.cycleTicks();
+        long start = System.nanoTime();
+        SimulationReport report = simulator.run(ticks);
+        long elapsed = Math.max(1, System.nanoTime() - start);
+
+        System.out.println(report);
+        System.out.printf("throughput=%.1f Mticks/s%n", ticks * 1000.0 / elapsed);
+        if (report.maxDrift() > tolerance) {
+            System.out.println("FAIL: drift " + report.maxDrift() + " exceeds " + tolerance + " ticks");
+            System.exit(1);
+        }
+        System.out.println("OK");
+    }
+}
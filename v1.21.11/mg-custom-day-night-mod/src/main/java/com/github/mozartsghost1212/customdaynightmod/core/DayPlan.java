@@ -0,0 +1,16 @@
+package com.github.mozartsghost1212.customdaynightmod.core;
+
+/**
+ * The schedule of one in-game day under a {@link SeasonalCalendar}.
+ *
+ * @param day        day number ({@code timeOfDay / 24000})
+ * @param dayOfYear  position in the calendar year, starting at 0
+ * @param season     season the day falls in
+ * @param dayTicks   real-time length of the day phase in server ticks
+ * @param nightTicks real-time length of the night phase in server ticks
+ * @param dayStep    fixed-point step for the day phase
+ * @param nightStep  fixed-point step for the night phase
+ */
+public record DayPlan(long day, int dayOfYear, Season season, int dayTicks, int nightTicks,
+                      long dayStep, long nightStep) {
+}
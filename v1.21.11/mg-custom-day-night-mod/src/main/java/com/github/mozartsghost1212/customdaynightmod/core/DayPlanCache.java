@@ -0,0 +1,39 @@
+package com.github.mozartsghost1212.customdaynightmod.core;
+
+/**
+ * A small ring of {@link DayPlan}s for the current and upcoming days.
+ * <p>
+ * When a day is requested that is not in the ring, it and the following days are computed in
+ * one go, so consecutive days are usually already there. Day {@code d} always lives in slot
+ * {@code d mod size}, which makes a lookup one index and one comparison.
+ * </p>
+ */
+public final class DayPlanCache {
+
+    /** Number of days kept. */
+    public static final int SIZE = 8;
+
+    private final SeasonalCalendar calendar;
+    private final DayPlan[] ring = new DayPlan[SIZE];
+
+    public DayPlanCache(SeasonalCalendar calendar) {
+        this.calendar = calendar;
+    }
+
+    /** Returns the plan for a day number, computing it and the next days if needed. */
+    public DayPlan get(long day) {
+        int slot = (int) Math.floorMod(day, (long) SIZE);
+        DayPlan plan = ring[slot];
+        if (plan == null || plan.day() != day) {
+            for (int i = 0; i < SIZE; i++) {
+                ring[(int) Math.floorMod(day + i, (long) SIZE)] = calendar.planFor(day + i);
+            }
+            plan = ring[slot];
+        }
+        return plan;
+    }
+
+    public SeasonalCalendar getCalendar() {
+        return calendar;
+    }
+}
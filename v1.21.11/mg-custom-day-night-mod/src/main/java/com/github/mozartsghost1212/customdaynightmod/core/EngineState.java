@@ -0,0 +1,16 @@
+package com.github.mozartsghost1212.customdaynightmod.core;
+
+/**
+ * The runtime state of a {@link CycleDriver} that is not derived from the configuration, so it
+ * can be saved with the world and restored after a restart without changing the timing.
+ * <p>
+ * The calendar position needs no entry: the current {@link DayPlan} follows from the time of
+ * day and is looked up again on the first tick.
+ * </p>
+ *
+ * @param phase       phase observed on the last tick
+ * @param lastWritten time of day the engine last wrote
+ * @param fraction    fixed-point game ticks carried over to the next tick
+ */
+public record EngineState(Phase phase, long lastWritten, long fraction) {
+}
@@ -0,0 +1,82 @@
+package com.github.mozartsghost1212.customdaynightmod.core;
+
+/**
+ * Measures the real time between server ticks and turns it into a tick scale for
+ * {@link TimeAdvanceEngine#tick(long, long)}.
+ * <p>
+ * At 20 TPS a tick lasts 50 ms and the scale is {@link #SCALE_ONE}. When the server lags, ticks
+ * arrive further apart and the scale grows by the same factor, so the clock keeps pace with real
+ * time; when the server catches up by running ticks back to back, the scale drops below one.
+ * The real time credited to a single tick is capped at a number of nominal ticks, and
+ * {@link TimeAdvanceEngine} caps the resulting step below half a cycle, so a long stall (a GC
+ * pause, a hung save) never skips a whole night at once.
+ * </p>
+ * <p>
+ * Uses {@link System#nanoTime()} deltas, which are monotonic. Also keeps smoothed averages of the
+ * tick rate and of the applied scale for display. Only used on the server thread.
+ * </p>
+ */
+public final class LagCompensator {
+
+    /** Fixed-point bits of a tick scale. */
+    public static final int SCALE_BITS = 16;
+    /** Tick scale of exactly one nominal tick. */
+    public static final long SCALE_ONE = 1L << SCALE_BITS;
+    /** Length of a nominal tick at 20 TPS. */
+    public static final long NANOS_PER_TICK = 50_000_000L;
+
+    /** Weight of the newest sample in the smoothed averages (about one second of ticks). */
+    private static final double SMOOTHING = 1.0 / 20;
+
+    private long lastNanos = 0L;
+    private boolean started = false;
+    private long scale = SCALE_ONE;
+    private double averageTickNanos = NANOS_PER_TICK;
+    private double averageScale = 1.0;
+
+    /**
+     * Records a tick and returns its scale.
+     *
+     * @param nowNanos        current {@link System#nanoTime()}
+     * @param maxCatchUpTicks most nominal ticks a single tick may be credited with
+     */
+    public long update(long nowNanos, int maxCatchUpTicks) {
+        if (!started) {
+            started = true;
+            lastNanos = nowNanos;
+            scale = SCALE_ONE;
+            return scale;
+        }
+        long elapsed = nowNanos - lastNanos;
+        lastNanos = nowNanos;
+        averageTickNanos += (elapsed - averageTickNanos) * SMOOTHING;
+
+        long credited = Math.min(elapsed, maxCatchUpTicks * NANOS_PER_TICK);
+        scale = (credited << SCALE_BITS) / NANOS_PER_TICK;
+        averageScale += ((double) scale / SCALE_ONE - averageScale) * SMOOTHING;
+        return scale;
+    }
+
+    /** Forgets the last tick, e.g. when the server restarts; the next tick counts as nominal. */
+    public void reset() {
+        started = false;
+        scale = SCALE_ONE;
+        averageTickNanos = NANOS_PER_TICK;
+        averageScale = 1.0;
+    }
+
+    /** Scale returned by the last {@link #update}. */
+    public long getScale() {
+        return scale;
+    }
+
+    /** Smoothed ticks per second, at most 20 when the server keeps up. */
+    public double getTps() {
+        return Math.min(20.0, 1_000_000_000.0 / Math.max(1.0, averageTickNanos));
+    }
+
+    /** Smoothed factor applied to each tick (1.0 = no compensation). */
+    public double getAverageScale() {
+        return averageScale;
+    }
+}
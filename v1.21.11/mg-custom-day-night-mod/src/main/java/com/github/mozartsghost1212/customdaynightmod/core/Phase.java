@@ -0,0 +1,14 @@
+package com.github.mozartsghost1212.customdaynightmod.core;
+
+/**
+ * The two halves of the day/night cycle. Day covers time of day 0–11999, night 12000–23999.
+ */
+public enum Phase {
+    DAY,
+    NIGHT;
+
+    /** Returns the phase for a time of day (any value, wrapped to one day). */
+    public static Phase of(long timeOfDay) {
+        return Math.floorMod(timeOfDay, TimeAdvanceEngine.TICKS_PER_DAY) < TimeAdvanceEngine.HALF_CYCLE ? DAY : NIGHT;
+    }
+}
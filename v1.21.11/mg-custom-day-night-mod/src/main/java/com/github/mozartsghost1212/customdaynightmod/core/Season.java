@@ -0,0 +1,16 @@
+package com.github.mozartsghost1212.customdaynightmod.core;
+
+/**
+ * The four quarters of a {@link SeasonalCalendar} year, in order.
+ */
+public enum Season {
+    SPRING,
+    SUMMER,
+    AUTUMN,
+    WINTER;
+
+    /** Display name, e.g. "Summer". */
+    public String displayName() {
+        return name().charAt(0) + name().substring(1).toLowerCase(java.util.Locale.ROOT);
+    }
+}
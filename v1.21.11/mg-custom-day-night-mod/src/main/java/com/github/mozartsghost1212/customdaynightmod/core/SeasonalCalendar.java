@@ -0,0 +1,66 @@
+package com.github.mozartsghost1212.customdaynightmod.core;
+
+/**
+ * Derives each day's day and night length from its position in an in-game year.
+ * <p>
+ * The year starts on the first day of spring and is split into four equal seasons. The day
+ * length follows a sine wave between {@code shortestPhase} and {@code longestPhase}: it is at the
+ * midpoint at the spring and autumn equinoxes (the middle of those seasons), longest in the
+ * middle of summer and shortest in the middle of winter. The night gets whatever the day does
+ * not, so every full cycle has the same length and winter nights are as long as summer days.
+ * </p>
+ * <p>
+ * {@link #planFor(long)} is a pure function; the driver only calls it through a
+ * {@link DayPlanCache} at day boundaries.
+ * </p>
+ */
+public final class SeasonalCalendar {
+
+    private final int yearLength;
+    private final int shortestPhase;
+    private final int longestPhase;
+
+    /**
+     * @param yearLength    days per year (at least 4)
+     * @param shortestPhase shortest day (mid-winter) or night (mid-summer), in server ticks
+     * @param longestPhase  longest day (mid-summer) or night (mid-winter), in server ticks
+     */
+    public SeasonalCalendar(int yearLength, int shortestPhase, int longestPhase) {
+        this.yearLength = Math.max(4, yearLength);
+        this.shortestPhase = Math.min(shortestPhase, longestPhase);
+        this.longestPhase = Math.max(shortestPhase, longestPhase);
+    }
+
+    /** Computes the plan for a day number. */
+    public DayPlan planFor(long day) {
+        int dayOfYear = (int) Math.floorMod(day, (long) yearLength);
+        Season season = Season.values()[dayOfYear * 4 / yearLength];
+
+        // Equinox in the middle of spring, i.e. one eighth into the year
+        double angle = 2 * Math.PI * (dayOfYear + 0.5 - yearLength / 8.0) / yearLength;
+        double mid = (shortestPhase + longestPhase) / 2.0;
+        double amplitude = (longestPhase - shortestPhase) / 2.0;
+        int dayTicks = (int) Math.round(mid + amplitude * Math.sin(angle));
+        int nightTicks = shortestPhase + longestPhase - dayTicks;
+
+        return new DayPlan(day, dayOfYear, season, dayTicks, nightTicks,
+                TimeAdvanceEngine.stepFor(dayTicks, 1.0f), TimeAdvanceEngine.stepFor(nightTicks, 1.0f));
+    }
+
+    /** Length of a full day/night cycle, which is the same every day. */
+    public int cycleTicks() {
+        return shortestPhase + longestPhase;
+    }
+
+    public int yearLength() {
+        return yearLength;
+    }
+
+    public int shortestPhase() {
+        return shortestPhase;
+    }
+
+    public int longestPhase() {
+        return longestPhase;
+    }
+}
@@ -0,0 +1,40 @@
+package com.github.mozartsghost1212.customdaynightmod.core;
+
+/**
+ * In-memory {@link WorldClock} for simulations and benchmarks. Mirrors vanilla by adding one
+ * tick after the mod's update while the daylight cycle is on.
+ */
+public final class SimulatedClock implements WorldClock {
+
+    private long timeOfDay;
+    private boolean daylightCycle = true;
+
+    public SimulatedClock(long timeOfDay) {
+        this.timeOfDay = timeOfDay;
+    }
+
+    @Override
+    public long getTimeOfDay() {
+        return timeOfDay;
+    }
+
+    @Override
+    public void setTimeOfDay(long timeOfDay) {
+        this.timeOfDay = timeOfDay;
+    }
+
+    public boolean isDaylightCycle() {
+        return daylightCycle;
+    }
+
+    public void setDaylightCycle(boolean daylightCycle) {
+        this.daylightCycle = daylightCycle;
+    }
+
+    /** Vanilla's own world tick. */
+    public void vanillaTick() {
+        if (daylightCycle) {
+            timeOfDay++;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.github.mozartsghost1212.customdaynightmod.core;
+
+import java.util.Arrays;
+
+/**
+ * Result of a {@link CycleSimulator} run.
+ *
+ * @param serverTicks      number of server ticks simulated
+ * @param day              measured day phases
+ * @param night            measured night phases
+ * @param transitions      number of phase transitions
+ * @param transitionTicks  server ticks at which the first transitions happened (at most
+ *                         {@link CycleSimulator#MAX_RECORDED_TRANSITIONS})
+ */
+public record SimulationReport(long serverTicks, PhaseStats day, PhaseStats night,
+                               long transitions, long[] transitionTicks) {
+
+    /**
+     * Measured lengths of one phase, in server ticks. Only phases that were observed from start
+     * to end are counted.
+     *
+     * @param expected        configured real-time length of the phase
+     * @param count           number of complete phases
+     * @param min             shortest phase
+     * @param max             longest phase
+     * @param mean            average phase length
+     * @param maxDrift        largest difference between a phase and {@code expected}
+     * @param cumulativeDrift sum of all differences; shows whether errors cancel out over time
+     */
+    public record PhaseStats(int expected, long count, long min, long max, double mean,
+                             long maxDrift, long cumulativeDrift) {
+
+        @Override
+        public String toString() {
+            if (count == 0) {
+                return "expected=" + expected + " complete=0";
+            }
+            return String.format("expected=%d complete=%d min=%d max=%d mean=%.3f maxDrift=%d cumulativeDrift=%d",
+                    expected, count, min, max, mean, maxDrift, cumulativeDrift);
+        }
+    }
+
+    /** Largest per-phase drift of either phase. */
+    public long maxDrift() {
+        return Math.max(day.maxDrift(), night.maxDrift());
+    }
+
+    @Override
+    public String toString() {
+        return "serverTicks=" + serverTicks
+                + "\nday:   " + day
+                + "\nnight: " + night
+                + "\ntransitions=" + transitions
+                + " first=" + Arrays.toString(Arrays.copyOf(transitionTicks, Math.min(transitionTicks.length, 8)));
+    }
+}
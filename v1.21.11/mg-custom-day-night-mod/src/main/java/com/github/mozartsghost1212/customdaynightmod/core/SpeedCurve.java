@@ -0,0 +1,170 @@
+package com.github.mozartsghost1212.customdaynightmod.core;
+
+import java.util.Arrays;
+
+/**
+ * A named, piecewise-linear speed curve over the 24 000-tick day.
+ * <p>
+ * A curve is defined by keyframes {@code time:rate}, where {@code time} is a time of day
+ * (0–23999) and {@code rate} is the speed multiplier at that time. The rate between two
+ * keyframes is interpolated linearly, and the last keyframe wraps around to the first, so
+ * {@code 0:1.0, 11000:0.5, 12500:2.0, 18000:0.25} gives a long golden hour, a quick dusk and a
+ * slow midnight. A single keyframe is a constant rate.
+ * </p>
+ * <p>
+ * The curve is compiled once into a table of fixed-point steps, one per {@link #RESOLUTION}
+ * game ticks, so {@link TimeAdvanceEngine} only does one array index per tick. The real-time
+ * length of day and night under the curve is computed from the same table.
+ * </p>
+ */
+public final class SpeedCurve {
+
+    /** Game ticks covered by one table entry. */
+    public static final int RESOLUTION = 20;
+    private static final int ENTRIES = (int) (TimeAdvanceEngine.TICKS_PER_DAY / RESOLUTION);
+
+    private final String name;
+    private final int[] times;
+    private final float[] rates;
+    private final long[] steps;
+    private final int effectiveDayTicks;
+    private final int effectiveNightTicks;
+
+    private SpeedCurve(String name, int[] times, float[] rates) {
+        this.name = name;
+        this.times = times;
+        this.rates = rates;
+        this.steps = new long[ENTRIES];
+
+        double dayTicks = 0;
+        double nightTicks = 0;
+        for (int i = 0; i < ENTRIES; i++) {
+            double rate = rateAt(i * RESOLUTION + RESOLUTION / 2.0);
+            steps[i] = Math.round(rate * TimeAdvanceEngine.ONE);
+            double realTicks = RESOLUTION / rate;
+            if (i * RESOLUTION < TimeAdvanceEngine.HALF_CYCLE) {
+                dayTicks += realTicks;
+            } else {
+                nightTicks += realTicks;
+            }
+        }
+        this.effectiveDayTicks = (int) Math.round(dayTicks);
+        this.effectiveNightTicks = (int) Math.round(nightTicks);
+    }
+
+    /**
+     * Parses and compiles a curve definition such as {@code 0:1.0, 11000:0.5, 12500:2.0}.
+     * Rates are clamped to {@code [minRate, maxRate]}.
+     *
+     * @throws IllegalArgumentException if the definition is empty or malformed
+     */
+    public static SpeedCurve parse(String name, String definition, float minRate, float maxRate) {
+        String[] parts = definition.split(",");
+        int[] times = new int[parts.length];
+        float[] rates = new float[parts.length];
+        int count = 0;
+        for (String part : parts) {
+            String keyframe = part.trim();
+            if (keyframe.isEmpty()) {
+                continue;
+            }
+            int colon = keyframe.indexOf(':');
+            if (colon < 0) {
+                throw new IllegalArgumentException("Curve '" + name + "': expected time:rate, got '" + keyframe + "'");
+            }
+            int time = Integer.parseInt(keyframe.substring(0, colon).trim());
+            if (time < 0 || time >= TimeAdvanceEngine.TICKS_PER_DAY) {
+                throw new IllegalArgumentException("Curve '" + name + "': time " + time + " is outside 0-23999");
+            }
+            float rate = Float.parseFloat(keyframe.substring(colon + 1).trim());
+            if (!Float.isFinite(rate)) {
+                throw new IllegalArgumentException("Curve '" + name + "': rate at " + time + " is not a number");
+            }
+            times[count] = time;
+            rates[count] = Math.max(minRate, Math.min(maxRate, rate));
+            count++;
+        }
+        if (count == 0) {
+            throw new IllegalArgumentException("Curve '" + name + "' has no keyframes");
+        }
+
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(times[a], times[b]));
+        int[] sortedTimes = new int[count];
+        float[] sortedRates = new float[count];
+        for (int i = 0; i < count; i++) {
+            sortedTimes[i] = times[order[i]];
+            sortedRates[i] = rates[order[i]];
+            if (i > 0 && sortedTimes[i] == sortedTimes[i - 1]) {
+                throw new IllegalArgumentException("Curve '" + name + "': time " + sortedTimes[i] + " is used twice");
+            }
+        }
+        return new SpeedCurve(name, sortedTimes, sortedRates);
+    }
+
+    /** Interpolated rate at a position in the day; only used while compiling. */
+    private double rateAt(double position) {
+        int n = times.length;
+        if (n == 1) {
+            return rates[0];
+        }
+        // Find the keyframe at or before the position, wrapping to the last one
+        int before = n - 1;
+        for (int i = 0; i < n; i++) {
+            if (times[i] <= position) {
+                before = i;
+            }
+        }
+        int after = (before + 1) % n;
+        double start = times[before];
+        double end = times[after];
+        double at = position;
+        if (end <= start) {
+            end += TimeAdvanceEngine.TICKS_PER_DAY; // segment wraps past midnight
+        }
+        if (at < start) {
+            at += TimeAdvanceEngine.TICKS_PER_DAY;
+        }
+        double t = (at - start) / (end - start);
+        return rates[before] + (rates[after] - rates[before]) * t;
+    }
+
+    /** Fixed-point step for a position in the day (0–23999). */
+    public long stepAt(long position) {
+        return steps[(int) (position / RESOLUTION)];
+    }
+
+    /** The compiled table, one fixed-point step per {@link #RESOLUTION} game ticks. */
+    long[] steps() {
+        return steps;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /** Normalized definition, sorted by time, as written back to the config file. */
+    public String definition() {
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; i < times.length; i++) {
+            if (i > 0) {
+                out.append(", ");
+            }
+            out.append(times[i]).append(':').append(rates[i]);
+        }
+        return out.toString();
+    }
+
+    /** Real-time length of the day (time of day 0–11999) under this curve, in server ticks. */
+    public int effectiveDayTicks() {
+        return effectiveDayTicks;
+    }
+
+    /** Real-time length of the night (time of day 12000–23999) under this curve, in server ticks. */
+    public int effectiveNightTicks() {
+        return effectiveNightTicks;
+    }
+}
@@ -0,0 +1,273 @@
+package com.github.mozartsghost1212.customdaynightmod.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Ring of fixed-width per-tick records in a memory-mapped file, for reconstructing afterwards
+ * what the engine did to a world's clock.
+ * <p>
+ * The file starts with a {@link #HEADER_BYTES} header: magic, format version, record size,
+ * capacity, the total number of records written so far, a table of the world ids records refer
+ * to by slot and, at its end, the number of server runs that have written to the ring and the
+ * index of the oldest valid record. It is followed by {@code capacity} records of
+ * {@link #RECORD_BYTES}, all little-endian:
+ * </p>
+ * <pre>
+ *  0 int  server tick          16 long time of day after     36 byte world slot
+ *  4 int  config version       24 long applied step (32.32)  37 byte phase (0 day, 1 night)
+ *  8 long time of day before   32 int  tick scale (16.16)    38 byte flags, 39 byte run
+ * </pre>
+ * <p>
+ * Config versions start again at 0 whenever the server starts, while the ring outlives the
+ * server; each record therefore also carries the low byte of the run that wrote it, counted up
+ * every time an existing ring is continued.
+ * </p>
+ * <p>
+ * {@link #record} only stores into the mapping: no allocation and no system call. The operating
+ * system writes dirty pages back on its own, so the ring also survives a crash of the server;
+ * reopening a file with the same capacity continues where it left off. {@link TickTraceReader}
+ * decodes the file or a {@link Snapshot} of it.
+ * </p>
+ * <p>
+ * Not thread-safe; records are written on the server thread only. A {@link Snapshot} is begun on
+ * that thread and copied on another one.
+ * </p>
+ */
+public final class TickTrace implements AutoCloseable {
+
+    public static final int MAGIC = 0x43444E54; // "CDNT"
+    public static final int FORMAT_VERSION = 2;
+    public static final int HEADER_BYTES = 4096;
+    public static final int RECORD_BYTES = 40;
+    /** Slot stored for a world that did not fit into the header's world table. */
+    public static final int UNKNOWN_WORLD = 255;
+
+    /** Flag: vanilla advanced the clock by itself before this tick. */
+    public static final int FLAG_VANILLA_TICKING = 1;
+
+    static final int OFFSET_MAGIC = 0;
+    static final int OFFSET_VERSION = 4;
+    static final int OFFSET_RECORD_BYTES = 8;
+    static final int OFFSET_CAPACITY = 12;
+    static final int OFFSET_WRITTEN = 16;
+    static final int OFFSET_WORLD_COUNT = 24;
+    /** World ids, each as an unsigned byte length followed by UTF-8 bytes, up to {@link #OFFSET_RUN}. */
+    static final int OFFSET_WORLDS = 28;
+    static final int OFFSET_RUN = HEADER_BYTES - 16;
+    /** Index of the oldest record still valid; only above {@code written - capacity} in a snapshot. */
+    static final int OFFSET_FIRST = HEADER_BYTES - 8;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    /** Written on the server thread only; volatile so a {@link Snapshot} copying elsewhere sees it. */
+    private volatile long written;
+    private int run;
+    private int worldCount;
+    private int worldTableEnd;
+
+    private TickTrace(Path path, FileChannel channel, MappedByteBuffer buffer, int capacity) {
+        this.path = path;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Maps a ring file of {@code capacity} records, creating it if needed. An existing file with
+     * the same layout is continued; anything else is overwritten.
+     */
+    public static TickTrace open(Path path, int capacity) throws IOException {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        long size = HEADER_BYTES + (long) capacity * RECORD_BYTES;
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            boolean reuse = channel.size() == size;
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            TickTrace trace = new TickTrace(path, channel, buffer, capacity);
+            if (reuse && buffer.getInt(OFFSET_MAGIC) == MAGIC && buffer.getInt(OFFSET_VERSION) == FORMAT_VERSION
+                    && buffer.getInt(OFFSET_RECORD_BYTES) == RECORD_BYTES && buffer.getInt(OFFSET_CAPACITY) == capacity) {
+                trace.resume();
+            } else {
+                trace.initialize();
+            }
+            return trace;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private void initialize() {
+        buffer.putInt(OFFSET_MAGIC, MAGIC);
+        buffer.putInt(OFFSET_VERSION, FORMAT_VERSION);
+        buffer.putInt(OFFSET_RECORD_BYTES, RECORD_BYTES);
+        buffer.putInt(OFFSET_CAPACITY, capacity);
+        buffer.putLong(OFFSET_WRITTEN, 0L);
+        buffer.putInt(OFFSET_WORLD_COUNT, 0);
+        buffer.putInt(OFFSET_RUN, 1);
+        buffer.putLong(OFFSET_FIRST, 0L);
+        written = 0L;
+        run = 1;
+        worldCount = 0;
+        worldTableEnd = OFFSET_WORLDS;
+    }
+
+    private void resume() {
+        written = buffer.getLong(OFFSET_WRITTEN);
+        run = buffer.getInt(OFFSET_RUN) + 1;
+        buffer.putInt(OFFSET_RUN, run);
+        worldCount = buffer.getInt(OFFSET_WORLD_COUNT);
+        worldTableEnd = OFFSET_WORLDS;
+        for (int i = 0; i < worldCount; i++) {
+            worldTableEnd += 1 + Byte.toUnsignedInt(buffer.get(worldTableEnd));
+        }
+    }
+
+    /**
+     * Returns the slot recorded for a world id, adding it to the header's table if it is new, or
+     * {@link #UNKNOWN_WORLD} when the table is full. Call once per world, not per tick.
+     */
+    public int worldSlot(String worldId) {
+        int position = OFFSET_WORLDS;
+        for (int slot = 0; slot < worldCount; slot++) {
+            int length = Byte.toUnsignedInt(buffer.get(position));
+            byte[] stored = new byte[length];
+            buffer.get(position + 1, stored);
+            if (worldId.equals(new String(stored, StandardCharsets.UTF_8))) {
+                return slot;
+            }
+            position += 1 + length;
+        }
+        byte[] id = worldId.getBytes(StandardCharsets.UTF_8);
+        if (worldCount >= UNKNOWN_WORLD || id.length > 255 || worldTableEnd + 1 + id.length > OFFSET_RUN) {
+            return UNKNOWN_WORLD;
+        }
+        buffer.put(worldTableEnd, (byte) id.length);
+        buffer.put(worldTableEnd + 1, id);
+        worldTableEnd += 1 + id.length;
+        buffer.putInt(OFFSET_WORLD_COUNT, ++worldCount);
+        return worldCount - 1;
+    }
+
+    /**
+     * Stores one tick, overwriting the oldest record once the ring is full.
+     *
+     * @param step      fixed-point step applied at the start of the tick, see {@link TimeAdvanceEngine#getLastStep()}
+     * @param tickScale 16.16 fixed-point tick scale, see {@link LagCompensator}
+     * @param flags     a combination of the {@code FLAG_*} constants
+     */
+    public void record(int worldSlot, int serverTick, int configVersion, long timeBefore, long timeAfter,
+                       long step, long tickScale, Phase phase, int flags) {
+        int position = HEADER_BYTES + (int) (written % capacity) * RECORD_BYTES;
+        buffer.putInt(position, serverTick);
+        buffer.putInt(position + 4, configVersion);
+        buffer.putLong(position + 8, timeBefore);
+        buffer.putLong(position + 16, timeAfter);
+        buffer.putLong(position + 24, step);
+        buffer.putInt(position + 32, (int) tickScale);
+        buffer.put(position + 36, (byte) worldSlot);
+        buffer.put(position + 37, (byte) (phase == Phase.NIGHT ? 1 : 0));
+        buffer.put(position + 38, (byte) flags);
+        buffer.put(position + 39, (byte) run);
+        long next = written + 1;
+        buffer.putLong(OFFSET_WRITTEN, next);
+        written = next;
+    }
+
+    /**
+     * Begins a copy of the whole file (header and ring), e.g. to dump it elsewhere. Only the
+     * header is copied here, on the writing thread; {@link Snapshot#copy()} copies the records
+     * and may run on any thread.
+     */
+    public Snapshot beginSnapshot() {
+        byte[] header = new byte[HEADER_BYTES];
+        buffer.get(0, header);
+        return new Snapshot(header, written);
+    }
+
+    /**
+     * Copy of the ring as of {@link #beginSnapshot()}. Records keep being written while the
+     * copy is made, so the oldest ones may be replaced by newer ones meanwhile; those are left
+     * out through the header's index of the oldest valid record.
+     */
+    public final class Snapshot {
+        private final byte[] header;
+        private final long startWritten;
+        /** Index of the oldest record in the copy. */
+        private long first;
+
+        private Snapshot(byte[] header, long startWritten) {
+            this.header = header;
+            this.startWritten = startWritten;
+            this.first = Math.max(0L, startWritten - capacity);
+        }
+
+        /** Number of records in the copy; before {@link #copy()}, the most it can hold. */
+        public long records() {
+            return Math.max(0L, startWritten - first);
+        }
+
+        /** Copies the records; safe to call off the writing thread. */
+        public byte[] copy() {
+            byte[] copy = new byte[buffer.capacity()];
+            System.arraycopy(header, 0, copy, 0, HEADER_BYTES);
+            buffer.get(HEADER_BYTES, copy, HEADER_BYTES, copy.length - HEADER_BYTES);
+            // Every record written since the header was copied, and the one possibly being written
+            // now, may have replaced an old record during the copy.
+            first = Math.max(first, written + 1 - capacity);
+            wrap(copy).putLong(OFFSET_FIRST, first);
+            return copy;
+        }
+    }
+
+    /** Number of records the ring holds. */
+    public int capacity() {
+        return capacity;
+    }
+
+    /** Number of server runs that have written to this ring, including the current one. */
+    public int run() {
+        return run;
+    }
+
+    /** Total number of records written, including overwritten ones. */
+    public long written() {
+        return written;
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    /**
+     * Closes the file. The mapping itself is released when the buffer is garbage collected;
+     * the records stay readable in the file.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /** Wraps a dump or ring file's contents for reading with the same layout. */
+    static ByteBuffer wrap(byte[] content) {
+        return ByteBuffer.wrap(content).order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
@@ -0,0 +1,143 @@
+package com.github.mozartsghost1212.customdaynightmod.core;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decodes a {@link TickTrace} ring file or a dump of one, oldest record first.
+ * <p>
+ * Run it without the game:
+ * </p>
+ * <pre>
+ * ./gradlew readTrace --args="logs/customdaynightmod-trace-20261018-091244.bin"
+ * </pre>
+ * <p>
+ * It prints one line per tick: server tick, world, phase, time of day before and after, how far
+ * the clock moved since the world's previous record (vanilla's own tick included), the applied
+ * step as a rate, the tick scale and the config version.
+ * Lines are marked {@code RESYNC} when a world's time was changed by something other than the
+ * engine and vanilla's own tick since its previous record (sleeping, {@code /time set}), and
+ * {@code FROZEN} when vanilla did not advance the clock (daylight cycle off).
+ * </p>
+ * <p>
+ * Config versions start again at 0 on every server start, so they are only comparable between
+ * records of the same run; the {@code run} column (the low byte of the run counter, 0 in traces
+ * of format 1, which did not record it) tells runs apart.
+ * </p>
+ */
+public final class TickTraceReader {
+
+    /** One decoded record. */
+    public record Entry(int serverTick, int run, int configVersion, long timeBefore, long timeAfter, long step,
+                        int tickScale, String world, Phase phase, int flags) {
+
+        /** Game ticks per server tick of the applied step. */
+        public double rate() {
+            return (double) step / TimeAdvanceEngine.ONE;
+        }
+
+        public boolean vanillaTicking() {
+            return (flags & TickTrace.FLAG_VANILLA_TICKING) != 0;
+        }
+    }
+
+    private TickTraceReader() {
+    }
+
+    /** Reads a file written by {@link TickTrace} or a {@link TickTrace.Snapshot}. */
+    public static List<Entry> read(Path file) throws IOException {
+        return read(Files.readAllBytes(file));
+    }
+
+    /**
+     * Decodes the records of a trace, oldest first.
+     *
+     * @throws IllegalArgumentException if the content is not a trace of a known format
+     */
+    public static List<Entry> read(byte[] content) {
+        ByteBuffer buffer = TickTrace.wrap(content);
+        if (content.length < TickTrace.HEADER_BYTES || buffer.getInt(TickTrace.OFFSET_MAGIC) != TickTrace.MAGIC) {
+            throw new IllegalArgumentException("Not a tick trace");
+        }
+        int version = buffer.getInt(TickTrace.OFFSET_VERSION);
+        if (version < 1 || version > TickTrace.FORMAT_VERSION
+                || buffer.getInt(TickTrace.OFFSET_RECORD_BYTES) != TickTrace.RECORD_BYTES) {
+            throw new IllegalArgumentException("Unsupported trace format " + version);
+        }
+        int capacity = buffer.getInt(TickTrace.OFFSET_CAPACITY);
+        long written = buffer.getLong(TickTrace.OFFSET_WRITTEN);
+        if (content.length < TickTrace.HEADER_BYTES + (long) capacity * TickTrace.RECORD_BYTES) {
+            throw new IllegalArgumentException("Trace is truncated");
+        }
+
+        List<String> worlds = new ArrayList<>();
+        int position = TickTrace.OFFSET_WORLDS;
+        for (int i = 0, count = buffer.getInt(TickTrace.OFFSET_WORLD_COUNT); i < count; i++) {
+            int length = Byte.toUnsignedInt(buffer.get(position));
+            worlds.add(new String(content, position + 1, length, StandardCharsets.UTF_8));
+            position += 1 + length;
+        }
+
+        long first = Math.max(written - capacity, version >= 2 ? buffer.getLong(TickTrace.OFFSET_FIRST) : 0L);
+        List<Entry> entries = new ArrayList<>((int) Math.max(0L, written - first));
+        for (long index = first; index < written; index++) {
+            int offset = TickTrace.HEADER_BYTES + (int) (index % capacity) * TickTrace.RECORD_BYTES;
+            int slot = Byte.toUnsignedInt(buffer.get(offset + 36));
+            entries.add(new Entry(
+                    buffer.getInt(offset),
+                    version >= 2 ? Byte.toUnsignedInt(buffer.get(offset + 39)) : 0,
+                    buffer.getInt(offset + 4),
+                    buffer.getLong(offset + 8),
+                    buffer.getLong(offset + 16),
+                    buffer.getLong(offset + 24),
+                    buffer.getInt(offset + 32),
+                    slot < worlds.size() ? worlds.get(slot) : "?",
+                    buffer.get(offset + 37) == 0 ? Phase.DAY : Phase.NIGHT,
+                    buffer.get(offset + 38)));
+        }
+        return entries;
+    }
+
+    /** Prints entries as aligned text, one per line, with the markers described above. */
+    public static void print(List<Entry> entries, PrintStream out) {
+        out.printf("%10s %-24s %-5s %12s %12s %6s %9s %6s %4s %7s%n",
+                "tick", "world", "phase", "before", "after", "moved", "rate", "scale", "run", "config");
+        Map<String, Long> lastWritten = new HashMap<>();
+        for (Entry entry : entries) {
+            Long previous = lastWritten.put(entry.world(), entry.timeAfter());
+            long since = previous == null ? 0L : entry.timeBefore() - previous;
+            long moved = entry.timeAfter() - (previous == null ? entry.timeBefore() : previous);
+            String marker = previous != null && since != 0L && since != 1L ? "  RESYNC"
+                    : entry.vanillaTicking() ? "" : "  FROZEN";
+            out.printf("%10d %-24s %-5s %12d %12d %6d %9.4f %6.2f %4d %7d%s%n",
+                    entry.serverTick(), entry.world(), entry.phase(), entry.timeBefore(), entry.timeAfter(),
+                    moved, entry.rate(),
+                    (double) entry.tickScale() / LagCompensator.SCALE_ONE, entry.run(), entry.configVersion(), marker);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: TickTraceReader <trace file>");
+            System.exit(2);
+        }
+        List<Entry> entries;
+        try {
+            entries = read(Path.of(args[0]));
+        } catch (IllegalArgumentException e) {
+            System.err.println(args[0] + ": " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        print(entries, System.out);
+        System.out.println(entries.size() + " records");
+    }
+}
@@ -0,0 +1,261 @@
+package com.github.mozartsghost1212.customdaynightmod.core;
+
+/**
+ * Fixed-point time-advance engine for a single world.
+ * <p>
+ * Each phase (day or night) has a precomputed step expressed in 32.32 fixed-point
+ * game ticks per server tick. Every server tick the step is added to a {@code long}
+ * accumulator; the whole part is applied to the world's time of day and the fractional
+ * part is carried over to the next tick. This means fractional multipliers such as
+ * {@code 0.5} or {@code 1.75} are honoured exactly, and absolute phase lengths match
+ * the configured tick count instead of being truncated.
+ * </p>
+ * <p>
+ * Steps are only replaced in {@link #configure(long, long)}, so the
+ * regular tick path is integer arithmetic only. A tick that crosses the day/night
+ * boundary is split: the part of the tick needed to reach the boundary is spent at the
+ * old phase's rate and the remainder at the new phase's rate.
+ * </p>
+ * <p>
+ * Vanilla also advances the time of day by one tick while the daylight cycle runs.
+ * The engine remembers the time it last wrote and absorbs that single vanilla tick, so
+ * the configured rate is the only thing that moves the clock. Any other jump (sleeping,
+ * {@code /time set}) is treated as an external change and the engine resynchronises
+ * from the new time.
+ * </p>
+ * <p>
+ * Instead of one step per phase, a compiled {@link SpeedCurve} can be installed. The step is then
+ * read from the curve's table at the current position, one array index per tick.
+ * </p>
+ * <p>
+ * A tick can be scaled (see {@link LagCompensator}): the step is multiplied by the 16.16
+ * fixed-point tick scale, so a tick that took twice the nominal real time advances the clock
+ * twice as far. A scaled step is capped at {@link #MAX_SCALED_STEP}, just under half a cycle, so
+ * a single tick crosses at most one day/night boundary and never skips a whole phase, however
+ * long the stall it stands for.
+ * </p>
+ */
+public final class TimeAdvanceEngine {
+
+    public static final long TICKS_PER_DAY = 24000L;
+    public static final long HALF_CYCLE = 12000L;
+
+    /** Number of fractional bits in a fixed-point step. */
+    public static final int FRACTION_BITS = 32;
+    /** One game tick in fixed-point. */
+    public static final long ONE = 1L << FRACTION_BITS;
+    private static final long FRACTION_MASK = ONE - 1;
+    /** Largest step a scaled tick may take: one game tick short of a phase. */
+    public static final long MAX_SCALED_STEP = (HALF_CYCLE - 1) << FRACTION_BITS;
+
+    private static final long UNSET = Long.MIN_VALUE;
+
+    private long dayStep = ONE;
+    private long nightStep = ONE;
+    /** Compiled curve steps, or null to use {@link #dayStep} and {@link #nightStep}. */
+    private long[] curveSteps = null;
+    /** Fractional game ticks carried over from previous server ticks. */
+    private long fraction = 0L;
+    /** Time of day this engine last wrote, or {@link #UNSET}. */
+    private long lastWritten = UNSET;
+    /** Whether vanilla advanced the clock by itself since the previous tick. */
+    private boolean vanillaTicking = true;
+    /** Scale of the current tick, 16.16 fixed-point. */
+    private long tickScale = LagCompensator.SCALE_ONE;
+    /** Scaled step applied at the position the last tick started from. */
+    private long lastStep = 0L;
+
+    /**
+     * Installs new per-phase fixed-point steps, typically taken from a configuration
+     * snapshot. The carried fraction is kept so a change mid-phase does not cause a jump.
+     */
+    public void configure(long dayStep, long nightStep) {
+        configure(dayStep, nightStep, null);
+    }
+
+    /**
+     * Installs new steps and an optional speed curve that takes precedence over them.
+     */
+    public void configure(long dayStep, long nightStep, SpeedCurve curve) {
+        this.dayStep = dayStep;
+        this.nightStep = nightStep;
+        this.curveSteps = curve != null ? curve.steps() : null;
+    }
+
+    /**
+     * Computes the fixed-point step for one phase. The configuration calls this once
+     * per snapshot, so the tick path never does the division.
+     * <p>
+     * For an absolute length the step is rounded up, which guarantees that the
+     * 12 000 game ticks of the phase are covered in exactly {@code absoluteLength}
+     * server ticks for every length the configuration accepts.
+     * </p>
+     */
+    public static long stepFor(int absoluteLength, float multiplier) {
+        if (absoluteLength > 0) {
+            long numerator = HALF_CYCLE << FRACTION_BITS;
+            return (numerator + absoluteLength - 1) / absoluteLength;
+        }
+        return Math.round((double) multiplier * ONE);
+    }
+
+    /**
+     * Computes the effective real-time duration in ticks for a phase.
+     * If absoluteLength > 0, it is used directly. Otherwise, the vanilla
+     * half-cycle (12 000 ticks) is scaled by the inverse of the multiplier.
+     */
+    public static int effectiveTicks(int absoluteLength, float multiplier) {
+        if (absoluteLength > 0) {
+            return absoluteLength;
+        }
+        // multiplier scales speed, so real-time duration = base / multiplier
+        return Math.round(HALF_CYCLE / multiplier);
+    }
+
+    /**
+     * Advances the clock by one nominal server tick.
+     *
+     * @param observedTime the world's current time of day
+     * @return the time of day to write back to the world
+     */
+    public long tick(long observedTime) {
+        return tick(observedTime, LagCompensator.SCALE_ONE);
+    }
+
+    /**
+     * Advances the clock by one server tick, scaled by the real time it stood for.
+     *
+     * @param observedTime the world's current time of day
+     * @param tickScale    16.16 fixed-point tick scale, {@link LagCompensator#SCALE_ONE} for a nominal tick
+     * @return the time of day to write back to the world
+     */
+    public long tick(long observedTime, long tickScale) {
+        this.tickScale = tickScale;
+        long base;
+        long delta = observedTime - lastWritten;
+        if (lastWritten != UNSET && (delta == 0L || delta == 1L)) {
+            // Either the daylight cycle is off or vanilla added its own single tick.
+            base = lastWritten;
+            vanillaTicking = delta == 1L;
+        } else {
+            // First tick or an external change (/time set, sleeping): resynchronise.
+            base = observedTime;
+            fraction = 0L;
+        }
+        long next = advance(base);
+        lastWritten = next;
+        return next;
+    }
+
+    /**
+     * Forgets the last written time so the next {@link #tick(long)} resynchronises.
+     */
+    public void reset() {
+        lastWritten = UNSET;
+        fraction = 0L;
+    }
+
+    /**
+     * Continues from a saved state: if the next observed time is {@code lastWritten} or one tick
+     * later, the carried fraction is kept exactly as if the engine had never stopped.
+     */
+    public void restore(long lastWritten, long fraction) {
+        this.lastWritten = lastWritten;
+        this.fraction = fraction & FRACTION_MASK;
+    }
+
+    /** Returns whether the engine has written a time since it was created or reset. */
+    public boolean hasWritten() {
+        return lastWritten != UNSET;
+    }
+
+    /** Time of day last written; only meaningful when {@link #hasWritten()}. */
+    public long getLastWritten() {
+        return lastWritten;
+    }
+
+    /** Fixed-point game ticks carried over to the next tick. */
+    public long getFraction() {
+        return fraction;
+    }
+
+    private long advance(long time) {
+        long position = Math.floorMod(time, TICKS_PER_DAY);
+        if (curveSteps != null) {
+            // Steps change every few ticks along a curve, so there is no boundary to split at.
+            lastStep = scaled(curveSteps[(int) (position / SpeedCurve.RESOLUTION)]);
+            long accumulated = fraction + lastStep;
+            fraction = accumulated & FRACTION_MASK;
+            return time + (accumulated >>> FRACTION_BITS);
+        }
+        boolean day = position < HALF_CYCLE;
+        long step = scaled(day ? dayStep : nightStep);
+        lastStep = step;
+        long accumulated = fraction + step;
+        long whole = accumulated >>> FRACTION_BITS;
+        long toBoundary = (day ? HALF_CYCLE : TICKS_PER_DAY) - position;
+
+        if (whole < toBoundary) {
+            fraction = accumulated & FRACTION_MASK;
+            return time + whole;
+        }
+        return crossBoundary(time, toBoundary, step, scaled(day ? nightStep : dayStep));
+    }
+
+    /**
+     * Multiplies a step by the tick scale without overflowing for any allowed step and scale, and
+     * caps the result at {@link #MAX_SCALED_STEP}.
+     */
+    private long scaled(long step) {
+        if (tickScale == LagCompensator.SCALE_ONE) {
+            return step;
+        }
+        long high = (step >>> LagCompensator.SCALE_BITS) * tickScale;
+        long low = ((step & (LagCompensator.SCALE_ONE - 1)) * tickScale) >>> LagCompensator.SCALE_BITS;
+        return Math.min(high + low, MAX_SCALED_STEP);
+    }
+
+    /**
+     * Splits a tick that reaches the phase boundary: the part needed to reach the
+     * boundary uses the old step, the rest of the tick uses the new phase's step.
+     * Only runs twice per cycle, so the floating-point division is not on the hot path.
+     * Neither step exceeds {@link #MAX_SCALED_STEP}, so the remainder always ends inside the new
+     * phase and the next boundary is left to a later tick.
+     */
+    private long crossBoundary(long time, long toBoundary, long oldStep, long newStep) {
+        long needed = (toBoundary << FRACTION_BITS) - fraction;
+        double remainingTick = 1.0 - (double) needed / oldStep;
+        long carried = (long) (remainingTick * newStep);
+        fraction = carried & FRACTION_MASK;
+        return time + toBoundary + (carried >>> FRACTION_BITS);
+    }
+
+    /**
+     * Returns whether vanilla is advancing the time of day by itself (daylight cycle on),
+     * as observed on the last tick. Clients predict time at that same vanilla rate.
+     */
+    public boolean isVanillaTicking() {
+        return vanillaTicking;
+    }
+
+    /**
+     * Fixed-point step, including the tick scale, that the last tick started with. A tick that
+     * crossed the day/night boundary continued at the other phase's step.
+     */
+    public long getLastStep() {
+        return lastStep;
+    }
+
+    public long getDayStep() {
+        return dayStep;
+    }
+
+    public long getNightStep() {
+        return nightStep;
+    }
+
+    /** Returns whether a speed curve is installed. */
+    public boolean hasCurve() {
+        return curveSteps != null;
+    }
+}
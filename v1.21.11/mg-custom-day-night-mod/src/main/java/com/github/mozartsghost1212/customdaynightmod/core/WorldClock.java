@@ -0,0 +1,14 @@
+package com.github.mozartsghost1212.customdaynightmod.core;
+
+/**
+ * The time of day of one world, as seen by the {@link CycleDriver}.
+ * <p>
+ * In the game this is backed by a server world; headless code uses a {@link SimulatedClock}.
+ * </p>
+ */
+public interface WorldClock {
+
+    long getTimeOfDay();
+
+    void setTimeOfDay(long timeOfDay);
+}
@@ -0,0 +1,32 @@
+package com.github.mozartsghost1212.customdaynightmod.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event covering one read or write of the configuration file. The event's duration
+ * is the time spent on the I/O.
+ */
+@Name("customdaynightmod.ConfigIo")
+@Label("Config File I/O")
+@Category({"Minecraft", "Custom Day/Night Mod"})
+@Description("The mod's configuration file was loaded, reloaded or saved")
+@StackTrace(false)
+public class ConfigIoEvent extends Event {
+
+    @Label("Operation")
+    @Description("load, reload, watch or save")
+    public String operation;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+
+    @Label("Success")
+    public boolean success;
+}
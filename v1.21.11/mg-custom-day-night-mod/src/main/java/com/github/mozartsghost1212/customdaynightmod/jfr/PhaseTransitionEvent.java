@@ -0,0 +1,35 @@
+package com.github.mozartsghost1212.customdaynightmod.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event emitted when a world switches between day and night.
+ */
+@Name("customdaynightmod.PhaseTransition")
+@Label("Day/Night Phase Transition")
+@Category({"Minecraft", "Custom Day/Night Mod"})
+@Description("A world entered the day or night phase")
+@StackTrace(false)
+public class PhaseTransitionEvent extends Event {
+
+    @Label("World")
+    public String world;
+
+    @Label("Old Phase")
+    public String oldPhase;
+
+    @Label("New Phase")
+    public String newPhase;
+
+    @Label("Time of Day")
+    public long timeOfDay;
+
+    @Label("Effective Rate")
+    @Description("Game ticks per server tick in the new phase")
+    public double effectiveRate;
+}
@@ -0,0 +1,27 @@
+package com.github.mozartsghost1212.customdaynightmod.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event covering one run of the mod's tick handler. The event's duration is the
+ * handler's cost. It fires every tick, so it is disabled by default and has to be enabled
+ * explicitly in the recording settings.
+ */
+@Name("customdaynightmod.TickAdvance")
+@Label("Day/Night Tick Advance")
+@Category({"Minecraft", "Custom Day/Night Mod"})
+@Description("Cost of advancing the time of day of all driven worlds for one server tick")
+@StackTrace(false)
+@Enabled(false)
+public class TickAdvanceEvent extends Event {
+
+    @Label("Worlds")
+    @Description("Number of worlds whose time was advanced")
+    public int worlds;
+}